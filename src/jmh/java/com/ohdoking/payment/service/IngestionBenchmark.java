@@ -0,0 +1,110 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.repository.RepositoryPersistence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput and latency of adding time cards and sales receipts, single threaded and with 4 writers,
+ * in memory only and persisted with a write ahead log
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IngestionBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2020, 5, 27);
+
+    @Param({"10000"})
+    int employeeCount;
+
+    @Param({"false", "true"})
+    boolean persisted;
+
+    private PayrollFixture payrollFixture;
+    private Path directory;
+    private RepositoryPersistence persistence;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        // fresh repositories per iteration so the stored records don't pile up over the run
+        payrollFixture = new PayrollFixture(employeeCount);
+        if (persisted) {
+            directory = Files.createTempDirectory("ingestion-benchmark");
+            persistence = new RepositoryPersistence(directory, payrollFixture.employeeRepository,
+                    payrollFixture.timeCardRepository, payrollFixture.salesReceiptRepository);
+            persistence.open();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (persisted) {
+            persistence.close();
+            PayrollFixture.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void addTimeCard() {
+        doAddTimeCard();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void addTimeCardLatency() {
+        doAddTimeCard();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public void addTimeCardConcurrently() {
+        doAddTimeCard();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void addSalesReceipt() {
+        doAddSalesReceipt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void addSalesReceiptLatency() {
+        doAddSalesReceipt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public void addSalesReceiptConcurrently() {
+        doAddSalesReceipt();
+    }
+
+    private void doAddTimeCard() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        payrollFixture.timeCardService.addTimeCard(
+                payrollFixture.hourlyEmployeeIds[random.nextInt(payrollFixture.hourlyEmployeeIds.length)], DATE, 8.0 + random.nextInt(4));
+    }
+
+    private void doAddSalesReceipt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        payrollFixture.salesReceiptService.addSalesReceipt(
+                payrollFixture.commissionEmployeeIds[random.nextInt(payrollFixture.commissionEmployeeIds.length)], DATE, random.nextInt(1000));
+    }
+}
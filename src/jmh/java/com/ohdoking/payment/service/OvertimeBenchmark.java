@@ -0,0 +1,44 @@
+package com.ohdoking.payment.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gross pay of one week of time cards with the overtime rule
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OvertimeBenchmark {
+
+    private double[] hours;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        hours = new double[7];
+        for (int i = 0; i < hours.length; i++) {
+            // up to 20 hours, so some days go over 8 and 16 hours
+            hours[i] = random.nextInt(41) / 2.0;
+        }
+    }
+
+    @Benchmark
+    public double getWeightedHoursPerDay() {
+        double weightedHours = 0.0;
+        for (double hour : hours) {
+            weightedHours += OvertimeCalculator.getWeightedHours(hour);
+        }
+        return weightedHours;
+    }
+
+    @Benchmark
+    public long getGrossPayCentsOfPeriod() {
+        return OvertimeCalculator.getGrossPayCents(1500, hours, 0, hours.length);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.repository.PaymentLedger;
+import com.ohdoking.payment.repository.PaymentRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one full payday over synthetic employees with one week of time cards and two weeks of sales receipts
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PaydayBenchmark {
+
+    // friday that is the last weekday of month and commission payment date, so every type is paid
+    private static final LocalDate PAYDAY = LocalDate.of(2020, 5, 29);
+
+    @Param({"10000", "100000", "1000000"})
+    int employeeCount;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private PayrollFixture payrollFixture;
+    private Path ledgerDirectory;
+    private PaymentLedger paymentLedger;
+    private PaymentService paymentService;
+
+    @Setup(Level.Trial)
+    public void setUpPayroll() {
+        payrollFixture = new PayrollFixture(employeeCount);
+        for (UUID employeeId : payrollFixture.hourlyEmployeeIds) {
+            for (int day = 0; day < 5; day++) {
+                payrollFixture.timeCardService.addTimeCard(employeeId, PAYDAY.minusDays(day), 7.0 + day);
+            }
+        }
+        for (UUID employeeId : payrollFixture.commissionEmployeeIds) {
+            for (int day = 0; day < 10; day++) {
+                payrollFixture.salesReceiptService.addSalesReceipt(employeeId, PAYDAY.minusDays(day), 100 + day);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpLedger() throws IOException {
+        // payment ids are deterministic per date and already stored payments are skipped,
+        // so every invocation needs a fresh ledger to measure the writes
+        ledgerDirectory = Files.createTempDirectory("payday-benchmark");
+        paymentLedger = new PaymentLedger(ledgerDirectory);
+        paymentService = payrollFixture.paymentService(new PaymentRepository(paymentLedger));
+        paymentService.setParallelism(parallelism);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownLedger() throws IOException {
+        paymentLedger.close();
+        PayrollFixture.deleteDirectory(ledgerDirectory);
+    }
+
+    @Benchmark
+    public void payday() {
+        paymentService.payday(PAYDAY);
+    }
+}
@@ -0,0 +1,84 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import com.ohdoking.payment.repository.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * in memory payroll with synthetic employees for the benchmarks
+ */
+class PayrollFixture {
+
+    final EmployeeRepository employeeRepository = new EmployeeRepository();
+    final TimeCardRepository timeCardRepository = new TimeCardRepository();
+    final SalesReceiptRepository salesReceiptRepository = new SalesReceiptRepository();
+    final ServiceChargeRepository serviceChargeRepository = new ServiceChargeRepository();
+    final PayAccumulatorRepository payAccumulatorRepository = new PayAccumulatorRepository();
+    final PayCalendar payCalendar = new PayCalendar();
+
+    final EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+    final EmployeeService employeeService = new EmployeeService(employeeRepository, employeeCache);
+    final TimeCardService timeCardService = new TimeCardService(employeeCache, timeCardRepository, payAccumulatorRepository);
+    final SalesReceiptService salesReceiptService = new SalesReceiptService(employeeCache, salesReceiptRepository, payAccumulatorRepository);
+    final ServiceChargeService serviceChargeService = new ServiceChargeService(employeeCache, serviceChargeRepository);
+
+    final UUID[] hourlyEmployeeIds;
+    final UUID[] commissionEmployeeIds;
+
+    /**
+     * adds employees with a mix of 50% H, 30% S and 20% C type
+     */
+    PayrollFixture(int employeeCount) {
+        Random random = new Random(employeeCount);
+        PaymentWay[] paymentWays = PaymentWay.values();
+
+        hourlyEmployeeIds = new UUID[employeeCount / 2];
+        commissionEmployeeIds = new UUID[employeeCount / 5];
+        int salaryEmployeeCount = employeeCount - hourlyEmployeeIds.length - commissionEmployeeIds.length;
+
+        for (int i = 0; i < hourlyEmployeeIds.length; i++) {
+            hourlyEmployeeIds[i] = addEmployee(PaymentType.H, paymentWays[random.nextInt(paymentWays.length)]);
+        }
+        for (int i = 0; i < commissionEmployeeIds.length; i++) {
+            commissionEmployeeIds[i] = addEmployee(PaymentType.C, paymentWays[random.nextInt(paymentWays.length)]);
+        }
+        for (int i = 0; i < salaryEmployeeCount; i++) {
+            addEmployee(PaymentType.S, paymentWays[random.nextInt(paymentWays.length)]);
+        }
+    }
+
+    PaymentService paymentService(PaymentRepository paymentRepository) {
+        return new PaymentService(paymentRepository, employeeService, serviceChargeService, timeCardService,
+                salesReceiptService, payAccumulatorRepository, payCalendar);
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private UUID addEmployee(PaymentType paymentType, PaymentWay paymentWay) {
+        UUID id = UUID.randomUUID();
+        employeeRepository.addEmployee(Employee.builder()
+                .id(id)
+                .name("employee-" + id)
+                .address("Berlin")
+                .paymentType(paymentType)
+                .hourlyRateCents(PaymentType.H.equals(paymentType) ? 1500 : 0)
+                .monthlyPayCents(PaymentType.H.equals(paymentType) ? 0 : 400000)
+                .commissionRatePpm(PaymentType.C.equals(paymentType) ? 50000 : 0)
+                .paymentWay(paymentWay)
+                .build());
+        return id;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ohdoking.payment.exception;
+
+public class DispatchException extends RuntimeException {
+    public DispatchException(String errMsg, Throwable cause) {
+        super(errMsg, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ohdoking.payment.exception;
+
+public class ImportException extends RuntimeException {
+    public ImportException(String errMsg, Throwable cause) {
+        super(errMsg, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.ohdoking.payment.exception;
+
+public class PartitionException extends RuntimeException {
+    public PartitionException(String errMsg) {
+        super(errMsg);
+    }
+
+    public PartitionException(String errMsg, Throwable cause) {
+        super(errMsg, cause);
+    }
+}
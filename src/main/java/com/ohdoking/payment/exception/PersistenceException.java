@@ -0,0 +1,11 @@
+package com.ohdoking.payment.exception;
+
+public class PersistenceException extends RuntimeException {
+    public PersistenceException(String errMsg) {
+        super(errMsg);
+    }
+
+    public PersistenceException(String errMsg, Throwable cause) {
+        super(errMsg, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ohdoking.payment.metrics;
+
+public interface Counter {
+
+    Counter NOOP = n -> {
+    };
+
+    void add(long n);
+
+    default void increment() {
+        add(1);
+    }
+}
@@ -0,0 +1,6 @@
+package com.ohdoking.payment.metrics;
+
+public interface CounterMXBean {
+
+    long getCount();
+}
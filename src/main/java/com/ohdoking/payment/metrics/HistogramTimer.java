@@ -0,0 +1,104 @@
+package com.ohdoking.payment.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * timer with a latency histogram of power of two buckets.
+ * <p>
+ * bucket i counts durations in [2^i, 2^(i+1)) nanoseconds, so recording is a few atomic adds without allocation
+ * and a percentile is precise to a factor of two, which is enough to see where a run spends its time.
+ */
+public class HistogramTimer implements Timer, TimerMXBean {
+
+    private static final int BUCKET_COUNT = 64;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    final private LongAdder count = new LongAdder();
+    final private LongAdder totalNanos = new LongAdder();
+    final private LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    final private AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    @Override
+    public void record(long durationNanos) {
+        long nanos = Math.max(durationNanos, 0);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket the percentile falls in, 0 if nothing is recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return getTotalNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = getCount();
+        return n == 0 ? 0 : getTotalNanos() / NANOS_PER_MILLI / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return getMaxNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return getPercentileNanos(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return getPercentileNanos(99) / NANOS_PER_MILLI;
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ohdoking.payment.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * keeps counters and timers in memory, readable by name and optionally exposed through jmx.
+ * <p>
+ * after {@link #registerMBeans(MBeanServer)} every metric, the existing ones and those created later,
+ * is an mbean named com.ohdoking.payment:type=Counter|Timer,name=&lt;metric name&gt;.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    public static final String JMX_DOMAIN = "com.ohdoking.payment";
+
+    final private Map<String, LongAdderCounter> counterMap = new ConcurrentHashMap<>();
+    final private Map<String, HistogramTimer> timerMap = new ConcurrentHashMap<>();
+
+    private MBeanServer mBeanServer;
+
+    @Override
+    public Counter counter(String name) {
+        LongAdderCounter counter = counterMap.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        return createMetric(counterMap, name, new LongAdderCounter(), "Counter");
+    }
+
+    @Override
+    public Timer timer(String name) {
+        HistogramTimer timer = timerMap.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        return createMetric(timerMap, name, new HistogramTimer(), "Timer");
+    }
+
+    /**
+     * @return count of the counter, 0 if it doesn't exist
+     */
+    public long getCount(String counterName) {
+        LongAdderCounter counter = counterMap.get(counterName);
+        return counter == null ? 0 : counter.getCount();
+    }
+
+    /**
+     * @return the timer, null if it doesn't exist
+     */
+    public HistogramTimer getTimer(String timerName) {
+        return timerMap.get(timerName);
+    }
+
+    /**
+     * @return count of every counter by name, sorted by name
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        counterMap.forEach((name, counter) -> result.put(name, counter.getCount()));
+        return result;
+    }
+
+    public synchronized void registerMBeans(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+        counterMap.forEach((name, counter) -> register(name, counter, "Counter"));
+        timerMap.forEach((name, timer) -> register(name, timer, "Timer"));
+    }
+
+    private synchronized <T> T createMetric(Map<String, T> metricMap, String name, T metric, String type) {
+        T existing = metricMap.putIfAbsent(name, metric);
+        if (existing != null) {
+            return existing;
+        }
+        if (mBeanServer != null) {
+            register(name, metric, type);
+        }
+        return metric;
+    }
+
+    private void register(String name, Object metric, String type) {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN, typeAndName(type, name));
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(metric, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(String.format("can't register metric %s", name), e);
+        }
+    }
+
+    private static Hashtable<String, String> typeAndName(String type, String name) {
+        Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", type);
+        properties.put("name", ObjectName.quote(name));
+        return properties;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ohdoking.payment.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class LongAdderCounter implements Counter, CounterMXBean {
+
+    final private LongAdder count = new LongAdder();
+
+    @Override
+    public void add(long n) {
+        count.add(n);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
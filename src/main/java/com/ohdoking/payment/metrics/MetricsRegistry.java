@@ -0,0 +1,32 @@
+package com.ohdoking.payment.metrics;
+
+/**
+ * source of named counters and timers.
+ * <p>
+ * a metric is looked up once, e.g. when the registry is set on a service, and then updated on the hot path.
+ * {@link #NOOP} is the default of every service, so uninstrumented code pays no more than a virtual call.
+ */
+public interface MetricsRegistry {
+
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        @Override
+        public Counter counter(String name) {
+            return Counter.NOOP;
+        }
+
+        @Override
+        public Timer timer(String name) {
+            return Timer.NOOP;
+        }
+    };
+
+    /**
+     * @return the counter of the name, the same instance for the same name
+     */
+    Counter counter(String name);
+
+    /**
+     * @return the timer of the name, the same instance for the same name
+     */
+    Timer timer(String name);
+}
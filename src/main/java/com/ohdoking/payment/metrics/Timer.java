@@ -0,0 +1,12 @@
+package com.ohdoking.payment.metrics;
+
+public interface Timer {
+
+    Timer NOOP = durationNanos -> {
+    };
+
+    /**
+     * @param durationNanos e.g. System.nanoTime() after the stage minus System.nanoTime() before it
+     */
+    void record(long durationNanos);
+}
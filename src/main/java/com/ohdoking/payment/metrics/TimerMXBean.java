@@ -0,0 +1,16 @@
+package com.ohdoking.payment.metrics;
+
+public interface TimerMXBean {
+
+    long getCount();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+}
@@ -0,0 +1,18 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Map;
+
+@Getter
+@Builder
+public class DispatchReport {
+    @NonNull
+    private Map<PaymentWay, Long> paymentCountByWay;
+    @NonNull
+    private Map<PaymentWay, Long> amountCentsByWay;
+    // payments of deleted employees, they have no address to be sent to
+    private long skippedCount;
+}
@@ -15,8 +15,10 @@ public class Employee {
     private String address;
     @NonNull
     private PaymentType paymentType;
-    private Double hourlyRate;
-    private Double monthlyPay;
-    private Double commissionRate;
+    // cents, see Money
+    private long hourlyRateCents;
+    private long monthlyPayCents;
+    // parts per million, see Money
+    private long commissionRatePpm;
     private PaymentWay paymentWay;
 }
@@ -0,0 +1,18 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class ImportReport {
+    private long rowCount;
+    private long importedCount;
+    // every failed row is counted, only the first ones are kept in rowErrors
+    private long errorCount;
+    @NonNull
+    private List<RowError> rowErrors;
+}
@@ -0,0 +1,65 @@
+package com.ohdoking.payment.model;
+
+/**
+ * money is kept as primitive long in cents (minor units) and rates as long in parts per million.
+ * <p>
+ * rounding rules
+ * - decimal input (rates and pays given as double) is rounded to the nearest cent or ppm, half up
+ * - computed amounts (hourly pay, commission) are rounded once per payment to the nearest cent, half even
+ * so rounding does not drift in one direction over many payments.
+ */
+public final class Money {
+
+    public static final long CENTS_PER_UNIT = 100;
+    public static final long PPM_PER_UNIT = 1_000_000;
+
+    private Money() {
+    }
+
+    /**
+     * whole currency units to cents
+     */
+    public static long ofUnits(long units) {
+        return Math.multiplyExact(units, CENTS_PER_UNIT);
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    public static long toPpm(double rate) {
+        return Math.round(rate * PPM_PER_UNIT);
+    }
+
+    /**
+     * @return cents as plain decimal number, e.g. 123456 -> 1234.56 and -5 -> -0.05
+     */
+    public static String toPlainString(long cents) {
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long remainder = Math.abs(cents % CENTS_PER_UNIT);
+        return (cents < 0 ? "-" : "") + units + (remainder < 10 ? ".0" : ".") + remainder;
+    }
+
+    /**
+     * cents multiplied by a quantity such as hours, rounded half even
+     */
+    public static long multiply(long cents, double quantity) {
+        return (long) Math.rint(cents * quantity);
+    }
+
+    /**
+     * cents multiplied by a rate in ppm, rounded half even
+     */
+    public static long applyRate(long cents, long ratePpm) {
+        return divideHalfEven(Math.multiplyExact(cents, ratePpm), PPM_PER_UNIT);
+    }
+
+    static long divideHalfEven(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * progress of one payday run, saved after each batch of payments is committed
+ */
+@Getter
+@Builder
+public class PaydayCheckpoint {
+    @NonNull
+    private UUID runId;
+    @NonNull
+    private LocalDate paymentDate;
+    // payment types whose employees are all paid
+    @NonNull
+    private Set<PaymentType> completedPaymentTypes;
+    // id of the last paid employee of a payment type that is in progress, employees are paid in ascending order of id
+    @NonNull
+    private Map<PaymentType, UUID> lastEmployeeIdByPaymentType;
+}
@@ -0,0 +1,18 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.LocalDate;
+
+@Getter
+@Builder
+public class PaydaySummary {
+    @NonNull
+    private LocalDate paymentDate;
+    private int partitionCount;
+    private long paymentCount;
+    // cents, see Money
+    private long amountCents;
+}
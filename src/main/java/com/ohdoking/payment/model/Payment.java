@@ -1,12 +1,14 @@
 package com.ohdoking.payment.model;
 
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 
 import java.time.LocalDate;
 import java.util.UUID;
 
+@Getter
 @Setter
 @Builder
 public class Payment {
@@ -14,8 +16,12 @@ public class Payment {
     private UUID id;
     @NonNull
     private UUID employeeId;
+    // cents, see Money. paid amount, gross minus the deduction
+    private long salaryAmountCents;
+    // cents of service charges deducted from the gross
+    private long deductionCents;
     @NonNull
-    private Double salaryAmount;
+    private PaymentType paymentType;
     @NonNull
     private PaymentWay paymentWay;
     @NonNull
@@ -0,0 +1,19 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Map;
+
+@Getter
+@Builder
+public class PaymentTotals {
+    private long paymentCount;
+    // cents, see Money
+    private long amountCents;
+    @NonNull
+    private Map<PaymentType, Long> amountCentsByType;
+    @NonNull
+    private Map<PaymentWay, Long> amountCentsByWay;
+}
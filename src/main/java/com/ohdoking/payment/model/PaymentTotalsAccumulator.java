@@ -0,0 +1,69 @@
+package com.ohdoking.payment.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * running totals of payments by payment type and payment way, turned into {@link PaymentTotals} when done.
+ * <p>
+ * not thread safe, each thread adds to its own accumulator and they are added together afterwards.
+ */
+public class PaymentTotalsAccumulator {
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PaymentWay[] PAYMENT_WAYS = PaymentWay.values();
+
+    private long paymentCount;
+    final private long[] amountCentsByType = new long[PAYMENT_TYPES.length];
+    final private long[] amountCentsByWay = new long[PAYMENT_WAYS.length];
+
+    public void addPayment(PaymentType paymentType, PaymentWay paymentWay, long salaryAmountCents) {
+        paymentCount++;
+        amountCentsByType[paymentType.ordinal()] += salaryAmountCents;
+        amountCentsByWay[paymentWay.ordinal()] += salaryAmountCents;
+    }
+
+    public void addPaymentCount(long paymentCount) {
+        this.paymentCount += paymentCount;
+    }
+
+    public void addAmountCents(PaymentType paymentType, long amountCents) {
+        amountCentsByType[paymentType.ordinal()] += amountCents;
+    }
+
+    public void addAmountCents(PaymentWay paymentWay, long amountCents) {
+        amountCentsByWay[paymentWay.ordinal()] += amountCents;
+    }
+
+    public void add(PaymentTotalsAccumulator other) {
+        paymentCount += other.paymentCount;
+        for (int i = 0; i < amountCentsByType.length; i++) {
+            amountCentsByType[i] += other.amountCentsByType[i];
+        }
+        for (int i = 0; i < amountCentsByWay.length; i++) {
+            amountCentsByWay[i] += other.amountCentsByWay[i];
+        }
+    }
+
+    /**
+     * @return the totals, the amount is the sum of the amounts by payment type
+     */
+    public PaymentTotals toPaymentTotals() {
+        long amountCents = 0;
+        Map<PaymentType, Long> typeMap = new EnumMap<>(PaymentType.class);
+        for (PaymentType paymentType : PAYMENT_TYPES) {
+            typeMap.put(paymentType, amountCentsByType[paymentType.ordinal()]);
+            amountCents += amountCentsByType[paymentType.ordinal()];
+        }
+        Map<PaymentWay, Long> wayMap = new EnumMap<>(PaymentWay.class);
+        for (PaymentWay paymentWay : PAYMENT_WAYS) {
+            wayMap.put(paymentWay, amountCentsByWay[paymentWay.ordinal()]);
+        }
+        return PaymentTotals.builder()
+                .paymentCount(paymentCount)
+                .amountCents(amountCents)
+                .amountCentsByType(typeMap)
+                .amountCentsByWay(wayMap)
+                .build();
+    }
+}
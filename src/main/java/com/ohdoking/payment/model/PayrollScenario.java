@@ -0,0 +1,21 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * what if payday ran on the date with the rates of some employees changed
+ */
+@Getter
+@Builder
+public class PayrollScenario {
+    @NonNull
+    private LocalDate paymentDate;
+    // applied in order, an employee in several cohorts gets the rates of the last one
+    @NonNull
+    private List<RateOverride> rateOverrides;
+}
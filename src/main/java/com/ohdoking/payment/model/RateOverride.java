@@ -0,0 +1,23 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * hypothetical rates of a cohort of employees, a rate that is null keeps the rate of the employee
+ */
+@Getter
+@Builder
+public class RateOverride {
+    @NonNull
+    private Set<UUID> employeeIds;
+    // cents, see Money
+    private Long hourlyRateCents;
+    private Long monthlyPayCents;
+    // parts per million, see Money
+    private Long commissionRatePpm;
+}
@@ -0,0 +1,13 @@
+package com.ohdoking.payment.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+@Getter
+@Builder
+public class RowError {
+    private long lineNumber;
+    @NonNull
+    private String message;
+}
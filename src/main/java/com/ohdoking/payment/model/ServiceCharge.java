@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Builder
@@ -15,6 +16,10 @@ public class ServiceCharge {
     @NonNull
     UUID employeeId;
 
+    // day of the week the charge is for, it's deducted from the pay of the next month
+    @NonNull
+    LocalDate date;
+
     @NonNull
     Integer amount;
 }
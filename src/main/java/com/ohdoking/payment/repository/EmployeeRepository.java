@@ -1,24 +1,197 @@
 package com.ohdoking.payment.repository;
 
+import com.ohdoking.payment.exception.ResourceNotFoundException;
 import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
 
-import java.util.List;
-import java.util.UUID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
 
-public class EmployeeRepository {
-    public void addEmployee(Employee employee){
+public class EmployeeRepository implements PersistentRepository {
+
+    public static final byte REPOSITORY_TAG = 1;
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+
+    final private Map<UUID, Employee> employeeMap = new ConcurrentHashMap<>();
+    // secondary indexes, the enum maps are filled once and only the id sets change afterwards.
+    // ids of a payment type are sorted so payday can resume after the last employee it paid
+    final private Map<PaymentType, NavigableSet<UUID>> employeeIdsByPaymentType = new EnumMap<>(PaymentType.class);
+    final private Map<PaymentWay, Set<UUID>> employeeIdsByPaymentWay = new EnumMap<>(PaymentWay.class);
+
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+
+    public EmployeeRepository() {
+        for (PaymentType paymentType : PaymentType.values()) {
+            employeeIdsByPaymentType.put(paymentType, new ConcurrentSkipListSet<>());
+        }
+        for (PaymentWay paymentWay : PaymentWay.values()) {
+            employeeIdsByPaymentWay.put(paymentWay, ConcurrentHashMap.newKeySet());
+        }
+    }
 
+    public void addEmployee(Employee employee){
+        journal.record(REPOSITORY_TAG, employee.getId(), out -> {
+            out.writeByte(ADD);
+            RecordCodec.writeEmployee(out, employee);
+        }, () -> putEmployee(employee));
     }
 
     public void deleteEmployee(UUID employeeId){
+        if (!employeeMap.containsKey(employeeId)) {
+            throw new ResourceNotFoundException(String.format("%s id of employee doesn't exist", employeeId.toString()));
+        }
+        journal.record(REPOSITORY_TAG, employeeId, out -> {
+            out.writeByte(DELETE);
+            RecordCodec.writeUuid(out, employeeId);
+        }, () -> removeEmployee(employeeId));
+    }
+
+    private void putEmployee(Employee employee) {
+        // indexes are updated inside compute so that writers of the same id can't interleave
+        employeeMap.compute(employee.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(employee);
+            return employee;
+        });
+    }
 
+    private void removeEmployee(UUID employeeId) {
+        employeeMap.computeIfPresent(employeeId, (id, previous) -> {
+            unindex(previous);
+            return null;
+        });
     }
 
     public Employee getEmployee(UUID id) {
-        return Employee.builder().build();
+        return employeeMap.get(id);
+    }
+
+    /**
+     * @return employees of the ids by id, ids of unknown employees are not in the map
+     */
+    public Map<UUID, Employee> getEmployees(Set<UUID> ids) {
+        Map<UUID, Employee> result = new HashMap<>(ids.size() * 2);
+        for (UUID id : ids) {
+            Employee employee = employeeMap.get(id);
+            if (employee != null) {
+                result.put(id, employee);
+            }
+        }
+        return result;
     }
 
     public List<Employee> getListOfEmployee() {
-        return List.of(Employee.builder().build());
+        return new ArrayList<>(employeeMap.values());
+    }
+
+    /**
+     * streams employees straight from the store without copying them into a list.
+     * the stream is weakly consistent, employees added or deleted while it is consumed may or may not be seen.
+     */
+    public Stream<Employee> streamEmployees() {
+        return employeeMap.values().stream();
+    }
+
+    /**
+     * streams employees of the payment type in ascending order of id
+     */
+    public Stream<Employee> streamEmployeesByPaymentType(PaymentType paymentType) {
+        return resolveStream(employeeIdsByPaymentType.get(paymentType));
+    }
+
+    /**
+     * streams employees of the payment type whose id is greater than afterEmployeeId, in ascending order of id.
+     * the skipped ids are not visited, so the cost is that of the remaining employees.
+     */
+    public Stream<Employee> streamEmployeesByPaymentType(PaymentType paymentType, UUID afterEmployeeId) {
+        return resolveStream(employeeIdsByPaymentType.get(paymentType).tailSet(afterEmployeeId, false));
+    }
+
+    public List<Employee> getListOfEmployeeByPaymentType(PaymentType paymentType) {
+        return resolve(employeeIdsByPaymentType.get(paymentType));
+    }
+
+    public List<Employee> getListOfEmployeeByPaymentWay(PaymentWay paymentWay) {
+        return resolve(employeeIdsByPaymentWay.get(paymentWay));
+    }
+
+    @Override
+    public byte getRepositoryTag() {
+        return REPOSITORY_TAG;
+    }
+
+    @Override
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        List<Employee> employeeList = getListOfEmployee();
+        out.writeInt(employeeList.size());
+        for (Employee employee : employeeList) {
+            RecordCodec.writeEmployee(out, employee);
+        }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            putEmployee(RecordCodec.readEmployee(in));
+        }
+    }
+
+    @Override
+    public void replay(DataInput in) throws IOException {
+        byte operation = in.readByte();
+        if (operation == ADD) {
+            putEmployee(RecordCodec.readEmployee(in));
+        } else if (operation == DELETE) {
+            removeEmployee(RecordCodec.readUuid(in));
+        } else {
+            throw new IOException(String.format("unknown employee operation %d", operation));
+        }
+    }
+
+    private Stream<Employee> resolveStream(Set<UUID> employeeIds) {
+        return employeeIds.stream()
+                .map(employeeMap::get)
+                .filter(Objects::nonNull);
+    }
+
+    private List<Employee> resolve(Set<UUID> employeeIds) {
+        List<Employee> employeeList = new ArrayList<>(employeeIds.size());
+        for (UUID employeeId : employeeIds) {
+            Employee employee = employeeMap.get(employeeId);
+            // the employee could be deleted between reading the index and the map
+            if (employee != null) {
+                employeeList.add(employee);
+            }
+        }
+        return employeeList;
+    }
+
+    private void index(Employee employee) {
+        employeeIdsByPaymentType.get(employee.getPaymentType()).add(employee.getId());
+        if (employee.getPaymentWay() != null) {
+            employeeIdsByPaymentWay.get(employee.getPaymentWay()).add(employee.getId());
+        }
+    }
+
+    private void unindex(Employee employee) {
+        employeeIdsByPaymentType.get(employee.getPaymentType()).remove(employee.getId());
+        if (employee.getPaymentWay() != null) {
+            employeeIdsByPaymentWay.get(employee.getPaymentWay()).remove(employee.getId());
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.ohdoking.payment.repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * running totals of hours and sales per employee and pay period, updated when time cards and sales receipts come in.
+ * <p>
+ * a pay period is the week that ends on friday. hourly employees are paid one period, commissioned employees two.
+ * these are derived from the time cards and sales receipts, so they aren't persisted themselves.
+ * TimeCardService and SalesReceiptService add the restored records again when the repositories are restored,
+ * see {@link TimeCardRepository#setRestoreListener} and {@link SalesReceiptRepository#setRestoreListener}.
+ */
+public class PayAccumulatorRepository {
+
+    final private Map<UUID, EmployeeAccumulator> accumulatorMap = new ConcurrentHashMap<>();
+
+    /**
+     * periods that ended before this epoch day are removed
+     */
+    private volatile long removedBeforeEpochDay = Long.MIN_VALUE;
+
+    /**
+     * @return the friday that ends the pay period the date belongs to
+     */
+    public static LocalDate periodEndOf(LocalDate date) {
+        return date.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+    }
+
+    /**
+     * @param regularHours  hours paid with the plain hourly rate
+     * @param overtimeHours overtime hours already weighted by their premium, so pay is rate * (regular + overtime)
+     */
+    public void addHours(UUID employeeId, LocalDate date, double regularHours, double overtimeHours) {
+        accumulatorOf(employeeId).addHours(periodEndOf(date).toEpochDay(), regularHours, overtimeHours);
+    }
+
+    public void addSalesAmount(UUID employeeId, LocalDate date, int amount) {
+        accumulatorOf(employeeId).addSalesAmount(periodEndOf(date).toEpochDay(), amount);
+    }
+
+    public double getRegularHours(UUID employeeId, LocalDate periodEnd) {
+        EmployeeAccumulator accumulator = accumulatorMap.get(employeeId);
+        return accumulator == null ? 0.0 : accumulator.getRegularHours(periodEnd.toEpochDay());
+    }
+
+    public double getOvertimeHours(UUID employeeId, LocalDate periodEnd) {
+        EmployeeAccumulator accumulator = accumulatorMap.get(employeeId);
+        return accumulator == null ? 0.0 : accumulator.getOvertimeHours(periodEnd.toEpochDay());
+    }
+
+    public long getSalesAmount(UUID employeeId, LocalDate periodEnd) {
+        EmployeeAccumulator accumulator = accumulatorMap.get(employeeId);
+        return accumulator == null ? 0L : accumulator.getSalesAmount(periodEnd.toEpochDay());
+    }
+
+    /**
+     * drops periods that ended before the date, once they're paid and won't be paid again
+     */
+    public void removePeriodsBefore(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        synchronized (this) {
+            removedBeforeEpochDay = Math.max(removedBeforeEpochDay, epochDay);
+        }
+        accumulatorMap.values().forEach(accumulator -> accumulator.removePeriodsBefore(epochDay));
+    }
+
+    /**
+     * @return whether the period was dropped by {@link #removePeriodsBefore(LocalDate)}, its totals read as 0
+     */
+    public boolean isPeriodRemoved(LocalDate periodEnd) {
+        return periodEnd.toEpochDay() < removedBeforeEpochDay;
+    }
+
+    /**
+     * sets the hours of every period to 0, before they're added again from the time cards
+     */
+    public void clearHours() {
+        accumulatorMap.values().forEach(EmployeeAccumulator::clearHours);
+    }
+
+    /**
+     * sets the sales amount of every period to 0, before it's added again from the sales receipts
+     */
+    public void clearSalesAmounts() {
+        accumulatorMap.values().forEach(EmployeeAccumulator::clearSalesAmounts);
+    }
+
+    private EmployeeAccumulator accumulatorOf(UUID employeeId) {
+        return accumulatorMap.computeIfAbsent(employeeId, id -> new EmployeeAccumulator());
+    }
+
+    private static class EmployeeAccumulator {
+
+        final private Map<Long, PeriodTotal> periodTotalMap = new HashMap<>();
+
+        synchronized void addHours(long periodEnd, double regularHours, double overtimeHours) {
+            PeriodTotal periodTotal = periodTotalMap.computeIfAbsent(periodEnd, k -> new PeriodTotal());
+            periodTotal.regularHours += regularHours;
+            periodTotal.overtimeHours += overtimeHours;
+        }
+
+        synchronized void addSalesAmount(long periodEnd, int amount) {
+            periodTotalMap.computeIfAbsent(periodEnd, k -> new PeriodTotal()).salesAmount += amount;
+        }
+
+        synchronized double getRegularHours(long periodEnd) {
+            PeriodTotal periodTotal = periodTotalMap.get(periodEnd);
+            return periodTotal == null ? 0.0 : periodTotal.regularHours;
+        }
+
+        synchronized double getOvertimeHours(long periodEnd) {
+            PeriodTotal periodTotal = periodTotalMap.get(periodEnd);
+            return periodTotal == null ? 0.0 : periodTotal.overtimeHours;
+        }
+
+        synchronized long getSalesAmount(long periodEnd) {
+            PeriodTotal periodTotal = periodTotalMap.get(periodEnd);
+            return periodTotal == null ? 0L : periodTotal.salesAmount;
+        }
+
+        synchronized void clearHours() {
+            for (PeriodTotal periodTotal : periodTotalMap.values()) {
+                periodTotal.regularHours = 0;
+                periodTotal.overtimeHours = 0;
+            }
+        }
+
+        synchronized void clearSalesAmounts() {
+            for (PeriodTotal periodTotal : periodTotalMap.values()) {
+                periodTotal.salesAmount = 0;
+            }
+        }
+
+        synchronized void removePeriodsBefore(long epochDay) {
+            periodTotalMap.keySet().removeIf(periodEnd -> periodEnd < epochDay);
+        }
+    }
+
+    private static class PeriodTotal {
+        double regularHours;
+        double overtimeHours;
+        long salesAmount;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.exception.PersistenceException;
+import com.ohdoking.payment.model.PaydayCheckpoint;
+import com.ohdoking.payment.model.PaymentType;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * one checkpoint file per payday run (&lt;run id&gt;.checkpoint).
+ * <p>
+ * a checkpoint is written to a temporary file, forced to disk and then renamed over the previous one,
+ * so after a crash the file holds either the previous or the new checkpoint, never a mix of them.
+ */
+public class PaydayCheckpointRepository {
+
+    private static final int MAGIC = 0x43484b50;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".checkpoint";
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    final private Path directory;
+
+    public PaydayCheckpointRepository(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't create checkpoint directory %s", directory), e);
+        }
+    }
+
+    /**
+     * @return checkpoint of the run, null if the run has no checkpoint
+     */
+    public synchronized PaydayCheckpoint findByRunId(UUID runId) {
+        Path file = fileOf(runId);
+        try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new PersistenceException(String.format("%s is not a compatible checkpoint", file));
+            }
+            UUID storedRunId = RecordCodec.readUuid(in);
+            LocalDate paymentDate = LocalDate.ofEpochDay(in.readLong());
+
+            Set<PaymentType> completedPaymentTypes = EnumSet.noneOf(PaymentType.class);
+            int completedCount = in.readByte();
+            for (int i = 0; i < completedCount; i++) {
+                completedPaymentTypes.add(PAYMENT_TYPES[in.readByte()]);
+            }
+            Map<PaymentType, UUID> lastEmployeeIdByPaymentType = new EnumMap<>(PaymentType.class);
+            int inProgressCount = in.readByte();
+            for (int i = 0; i < inProgressCount; i++) {
+                lastEmployeeIdByPaymentType.put(PAYMENT_TYPES[in.readByte()], RecordCodec.readUuid(in));
+            }
+
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected || !storedRunId.equals(runId)) {
+                throw new PersistenceException(String.format("%s is corrupted", file));
+            }
+            return PaydayCheckpoint.builder()
+                    .runId(storedRunId)
+                    .paymentDate(paymentDate)
+                    .completedPaymentTypes(completedPaymentTypes)
+                    .lastEmployeeIdByPaymentType(lastEmployeeIdByPaymentType)
+                    .build();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't read checkpoint %s", file), e);
+        }
+    }
+
+    public synchronized void save(PaydayCheckpoint checkpoint) {
+        Path file = fileOf(checkpoint.getRunId());
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                RecordCodec.writeUuid(out, checkpoint.getRunId());
+                out.writeLong(checkpoint.getPaymentDate().toEpochDay());
+
+                out.writeByte(checkpoint.getCompletedPaymentTypes().size());
+                for (PaymentType paymentType : checkpoint.getCompletedPaymentTypes()) {
+                    out.writeByte(paymentType.ordinal());
+                }
+                out.writeByte(checkpoint.getLastEmployeeIdByPaymentType().size());
+                for (Map.Entry<PaymentType, UUID> entry : checkpoint.getLastEmployeeIdByPaymentType().entrySet()) {
+                    out.writeByte(entry.getKey().ordinal());
+                    RecordCodec.writeUuid(out, entry.getValue());
+                }
+
+                out.flush();
+                out.writeInt((int) checked.getChecksum().getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't write checkpoint %s", file), e);
+        }
+    }
+
+    private Path fileOf(UUID runId) {
+        return directory.resolve(runId + SUFFIX);
+    }
+}
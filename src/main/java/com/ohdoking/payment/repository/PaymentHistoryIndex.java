@@ -0,0 +1,279 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentTotals;
+import com.ohdoking.payment.model.PaymentTotalsAccumulator;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * in memory indexes and aggregates of stored payments, kept up to date as payments are added.
+ * <p>
+ * payments stay in the {@link PaymentLedger}, the index only keeps primitive columns with their record numbers:
+ * - per employee, the date, record number and cumulative gross of every payment, sorted by date
+ * - per payment date, the record numbers in the order they were added and the totals by payment type and by payment way
+ * so a payment costs 28 bytes of heap and no object.
+ * <p>
+ * gross to date of an employee is the cumulative gross of the last payment on or before the date,
+ * so year and quarter to date are two binary searches whatever the number of payments.
+ * totals of a date range cost the number of payment dates in it.
+ * <p>
+ * one writer at a time, readers take no lock. the columns of an employee are published as a whole
+ * like those of {@link TimeCardColumns}, so a reader sees dates, record numbers and cumulative gross of the same payments.
+ * a reader may or may not see a payment that is being added.
+ */
+class PaymentHistoryIndex {
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PaymentWay[] PAYMENT_WAYS = PaymentWay.values();
+    private static final int INITIAL_CAPACITY = 4;
+
+    final private Map<UUID, EmployeeColumns> columnsByEmployeeId = new ConcurrentHashMap<>();
+    final private ConcurrentSkipListMap<LocalDate, DateTotals> totalsByDate = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param recordNumber position of the payment in the ledger
+     */
+    void add(Payment payment, long recordNumber) {
+        columnsByEmployeeId.computeIfAbsent(payment.getEmployeeId(), employeeId -> new EmployeeColumns())
+                .add(Math.toIntExact(payment.getPaymentDate().toEpochDay()), recordNumber, payment.getSalaryAmountCents() + payment.getDeductionCents());
+        totalsByDate.computeIfAbsent(payment.getPaymentDate(), date -> new DateTotals()).add(payment, recordNumber);
+    }
+
+    /**
+     * @return record numbers of the payments of the employee between from and to (both inclusive) in order of date
+     */
+    long[] findRecordNumbers(UUID employeeId, LocalDate from, LocalDate to) {
+        EmployeeColumns employeeColumns = columnsByEmployeeId.get(employeeId);
+        if (employeeColumns == null || from.isAfter(to)) {
+            return new long[0];
+        }
+        return employeeColumns.columns.findRecordNumbers(clamp(from.toEpochDay()), clamp(to.toEpochDay()));
+    }
+
+    /**
+     * passes the record numbers of the payments of the date to the consumer in the order they were added
+     */
+    void forEachRecordNumberOn(LocalDate date, LongConsumer consumer) {
+        DateTotals dateTotals = totalsByDate.get(date);
+        if (dateTotals != null) {
+            dateTotals.forEachRecordNumber(consumer);
+        }
+    }
+
+    /**
+     * @return gross of the employee from the first day of the year of the date to the date (inclusive)
+     */
+    long getYearToDateGrossCents(UUID employeeId, LocalDate date) {
+        return getGrossCents(employeeId, date.withDayOfYear(1), date);
+    }
+
+    /**
+     * @return gross of the employee from the first day of the quarter of the date to the date (inclusive)
+     */
+    long getQuarterToDateGrossCents(UUID employeeId, LocalDate date) {
+        return getGrossCents(employeeId, LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1), date);
+    }
+
+    /**
+     * @return totals of the payments between from and to (both inclusive)
+     */
+    PaymentTotals getTotals(LocalDate from, LocalDate to) {
+        PaymentTotalsAccumulator totals = new PaymentTotalsAccumulator();
+        if (!from.isAfter(to)) {
+            for (DateTotals dateTotals : totalsByDate.subMap(from, true, to, true).values()) {
+                dateTotals.addTo(totals);
+            }
+        }
+        return totals.toPaymentTotals();
+    }
+
+    private long getGrossCents(UUID employeeId, LocalDate from, LocalDate to) {
+        EmployeeColumns employeeColumns = columnsByEmployeeId.get(employeeId);
+        if (employeeColumns == null) {
+            return 0;
+        }
+        // one snapshot for both ends
+        Columns current = employeeColumns.columns;
+        int rowCount = current.size;
+        return current.cumulativeGrossCentsUpTo(clamp(to.toEpochDay()), rowCount)
+                - current.cumulativeGrossCentsUpTo(clamp(from.toEpochDay() - 1), rowCount);
+    }
+
+    private static int clamp(long epochDay) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+    }
+
+    /**
+     * a payment that is not older than the last one is appended: it is written into the columns before the volatile size
+     * is raised. an older payment is inserted into a copy of the columns which is then published as a whole,
+     * with the cumulative gross of every later payment raised. payments usually come in date order.
+     */
+    private static class EmployeeColumns {
+        private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+        void add(int epochDay, long recordNumber, long grossCents) {
+            Columns current = columns;
+            int rowCount = current.size;
+
+            if (rowCount == 0 || current.epochDays[rowCount - 1] <= epochDay) {
+                if (rowCount == current.epochDays.length) {
+                    current = current.copy(rowCount * 2, rowCount, -1);
+                    columns = current;
+                }
+                long cumulativeGrossCents = rowCount == 0 ? 0 : current.cumulativeGrossCents[rowCount - 1];
+                current.set(rowCount, epochDay, recordNumber, cumulativeGrossCents + grossCents);
+                current.size = rowCount + 1;
+            } else {
+                // after the payments of the same date
+                int row = current.upperBound(epochDay, rowCount);
+                int capacity = rowCount == current.epochDays.length ? rowCount * 2 : current.epochDays.length;
+                Columns inserted = current.copy(capacity, rowCount, row);
+                long cumulativeGrossCents = row == 0 ? 0 : current.cumulativeGrossCents[row - 1];
+                inserted.set(row, epochDay, recordNumber, cumulativeGrossCents + grossCents);
+                for (int i = row + 1; i <= rowCount; i++) {
+                    inserted.cumulativeGrossCents[i] += grossCents;
+                }
+                inserted.size = rowCount + 1;
+                columns = inserted;
+            }
+        }
+    }
+
+    private static class Columns {
+        final private int[] epochDays;
+        final private long[] recordNumbers;
+        final private long[] cumulativeGrossCents;
+        private volatile int size;
+
+        Columns(int capacity) {
+            epochDays = new int[capacity];
+            recordNumbers = new long[capacity];
+            cumulativeGrossCents = new long[capacity];
+        }
+
+        /**
+         * @param gap row left free for a payment to be inserted, -1 for none
+         */
+        Columns copy(int capacity, int rowCount, int gap) {
+            Columns copy = new Columns(capacity);
+            if (gap < 0) {
+                copyRows(this, 0, copy, 0, rowCount);
+                copy.size = rowCount;
+            } else {
+                copyRows(this, 0, copy, 0, gap);
+                copyRows(this, gap, copy, gap + 1, rowCount - gap);
+            }
+            return copy;
+        }
+
+        void set(int row, int epochDay, long recordNumber, long cumulativeGrossCents) {
+            epochDays[row] = epochDay;
+            recordNumbers[row] = recordNumber;
+            this.cumulativeGrossCents[row] = cumulativeGrossCents;
+        }
+
+        long[] findRecordNumbers(int fromEpochDay, int toEpochDay) {
+            int rowCount = size;
+            int from = lowerBound(fromEpochDay, rowCount);
+            int to = upperBound(toEpochDay, rowCount);
+            return from < to ? Arrays.copyOfRange(recordNumbers, from, to) : new long[0];
+        }
+
+        /**
+         * @return gross of every payment on or before the epoch day
+         */
+        long cumulativeGrossCentsUpTo(int epochDay, int rowCount) {
+            int row = upperBound(epochDay, rowCount);
+            return row == 0 ? 0 : cumulativeGrossCents[row - 1];
+        }
+
+        /**
+         * @return first row whose epoch day is not before the epoch day, rowCount if there is none
+         */
+        int lowerBound(int epochDay, int rowCount) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (epochDays[middle] < epochDay) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return first row whose epoch day is after the epoch day, rowCount if there is none
+         */
+        int upperBound(int epochDay, int rowCount) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (epochDays[middle] <= epochDay) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static void copyRows(Columns source, int sourceRow, Columns target, int targetRow, int length) {
+            System.arraycopy(source.epochDays, sourceRow, target.epochDays, targetRow, length);
+            System.arraycopy(source.recordNumbers, sourceRow, target.recordNumbers, targetRow, length);
+            System.arraycopy(source.cumulativeGrossCents, sourceRow, target.cumulativeGrossCents, targetRow, length);
+        }
+    }
+
+    private static class DateTotals {
+        final private AtomicLong paymentCount = new AtomicLong();
+        final private AtomicLongArray amountCentsByType = new AtomicLongArray(PAYMENT_TYPES.length);
+        final private AtomicLongArray amountCentsByWay = new AtomicLongArray(PAYMENT_WAYS.length);
+        // a grown array is published before the count that needs it, so readers read the count first
+        private volatile long[] recordNumbers = new long[INITIAL_CAPACITY];
+        private volatile int recordCount;
+
+        void add(Payment payment, long recordNumber) {
+            int count = recordCount;
+            if (count == recordNumbers.length) {
+                recordNumbers = Arrays.copyOf(recordNumbers, count * 2);
+            }
+            recordNumbers[count] = recordNumber;
+            recordCount = count + 1;
+
+            paymentCount.incrementAndGet();
+            amountCentsByType.addAndGet(payment.getPaymentType().ordinal(), payment.getSalaryAmountCents());
+            amountCentsByWay.addAndGet(payment.getPaymentWay().ordinal(), payment.getSalaryAmountCents());
+        }
+
+        void forEachRecordNumber(LongConsumer consumer) {
+            int count = recordCount;
+            long[] numbers = recordNumbers;
+            for (int i = 0; i < count; i++) {
+                consumer.accept(numbers[i]);
+            }
+        }
+
+        void addTo(PaymentTotalsAccumulator totals) {
+            totals.addPaymentCount(paymentCount.get());
+            for (PaymentType paymentType : PAYMENT_TYPES) {
+                totals.addAmountCents(paymentType, amountCentsByType.get(paymentType.ordinal()));
+            }
+            for (PaymentWay paymentWay : PAYMENT_WAYS) {
+                totals.addAmountCents(paymentWay, amountCentsByWay.get(paymentWay.ordinal()));
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.exception.PersistenceException;
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * append only, file backed ledger of payments.
+ * <p>
+ * payments are written as fixed size binary records into memory mapped segment files
+ * (payments-00000000.ledger, payments-00000001.ledger, ...).
+ * {@link #append(Payment)} only writes into the mapping, {@link #commit()} forces the current segment to disk.
+ * so a batch of payments costs one fsync instead of one per payment.
+ * <p>
+ * every record ends with a crc32 of its content. when the ledger is opened the last segment is scanned
+ * and appending continues at the first empty or broken record, so records not committed before a crash are dropped.
+ * records after it are cleared and forced before anything is appended, so an uncommitted record that happens to be whole
+ * can't come back at the next open once the broken one before it is written over.
+ * <p>
+ * a payment is addressed by its record number, its position in the ledger from 0, and read back with {@link #read(long)}.
+ * segments that are full stay mapped once they were read, so reading a record doesn't open a file.
+ */
+public class PaymentLedger implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x50415931;
+    private static final int VERSION = 1;
+    private static final String SEGMENT_PREFIX = "payments-";
+    private static final String SEGMENT_SUFFIX = ".ledger";
+
+    // record layout
+    private static final int ID_OFFSET = 0;
+    private static final int EMPLOYEE_ID_OFFSET = 16;
+    private static final int SALARY_AMOUNT_OFFSET = 32;
+    private static final int PAYMENT_DATE_OFFSET = 40;
+    private static final int PAYMENT_WAY_OFFSET = 48;
+    private static final int PAYMENT_TYPE_OFFSET = 49;
+    private static final int DEDUCTION_OFFSET = 52;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+
+    private static final PaymentWay[] PAYMENT_WAYS = PaymentWay.values();
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    final private Path directory;
+    final private int recordsPerSegment;
+
+    private int segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // number of records in the current segment
+    private int position;
+    // number of records in the current segment that are forced to disk
+    private int committedPosition;
+    private long size;
+    private boolean dirty;
+    // mappings of full segments by segment number
+    final private Map<Integer, MappedByteBuffer> fullSegmentBuffers = new HashMap<>();
+
+    public PaymentLedger(Path directory) {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public PaymentLedger(Path directory, int recordsPerSegment) {
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("recordsPerSegment should be greater than 0");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segmentList = listSegments();
+            if (segmentList.isEmpty()) {
+                openSegment(0);
+            } else {
+                Path last = segmentList.get(segmentList.size() - 1);
+                size = (long) (segmentList.size() - 1) * recordsPerSegment;
+                openSegment(segmentNumberOf(last));
+                position = countValidRecords(buffer);
+                size += position;
+                committedPosition = position;
+                clearRecordsFrom(position);
+            }
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't open payment ledger in %s", directory), e);
+        }
+    }
+
+    /**
+     * writes the payment into the mapped segment. it is durable after the next {@link #commit()}.
+     */
+    public synchronized void append(Payment payment) {
+        if (position == recordsPerSegment) {
+            rollSegment();
+        }
+
+        int offset = HEADER_SIZE + position * RECORD_SIZE;
+        buffer.putLong(offset + ID_OFFSET, payment.getId().getMostSignificantBits());
+        buffer.putLong(offset + ID_OFFSET + 8, payment.getId().getLeastSignificantBits());
+        buffer.putLong(offset + EMPLOYEE_ID_OFFSET, payment.getEmployeeId().getMostSignificantBits());
+        buffer.putLong(offset + EMPLOYEE_ID_OFFSET + 8, payment.getEmployeeId().getLeastSignificantBits());
+        buffer.putLong(offset + SALARY_AMOUNT_OFFSET, payment.getSalaryAmountCents());
+        buffer.putLong(offset + PAYMENT_DATE_OFFSET, payment.getPaymentDate().toEpochDay());
+        buffer.put(offset + PAYMENT_WAY_OFFSET, (byte) payment.getPaymentWay().ordinal());
+        buffer.put(offset + PAYMENT_TYPE_OFFSET, (byte) payment.getPaymentType().ordinal());
+        buffer.putLong(offset + DEDUCTION_OFFSET, payment.getDeductionCents());
+        buffer.putInt(offset + CRC_OFFSET, crc(buffer, offset));
+
+        position++;
+        size++;
+        dirty = true;
+    }
+
+    /**
+     * forces every record appended so far to disk
+     */
+    public synchronized void commit() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+        committedPosition = position;
+    }
+
+    /**
+     * drops the records appended to the current segment since the last commit, e.g. after the commit failed.
+     * records of a full segment were committed when the next one was started and aren't dropped.
+     *
+     * @return number of dropped records
+     */
+    public synchronized int rollback() {
+        int dropped = position - committedPosition;
+        if (dropped > 0) {
+            position = committedPosition;
+            size -= dropped;
+            clearRecordsFrom(position);
+            dirty = false;
+        }
+        return dropped;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * reads every committed or appended payment in the order they were appended
+     */
+    public synchronized void forEach(Consumer<Payment> consumer) {
+        for (int number = 0; number <= segmentNumber; number++) {
+            ByteBuffer segmentBuffer = segmentBufferOf(number);
+            int count = number == segmentNumber ? position : recordsPerSegment;
+            for (int i = 0; i < count; i++) {
+                consumer.accept(readRecord(segmentBuffer, HEADER_SIZE + i * RECORD_SIZE));
+            }
+        }
+    }
+
+    /**
+     * @param recordNumber position of the payment in the ledger, from 0 to size - 1
+     */
+    public synchronized Payment read(long recordNumber) {
+        return readRecord(segmentBufferOf(recordNumber), offsetOf(recordNumber));
+    }
+
+    /**
+     * @return id of the payment at the record number, without reading the rest of the record
+     */
+    public synchronized UUID readId(long recordNumber) {
+        ByteBuffer segmentBuffer = segmentBufferOf(recordNumber);
+        int offset = offsetOf(recordNumber);
+        return new UUID(segmentBuffer.getLong(offset + ID_OFFSET), segmentBuffer.getLong(offset + ID_OFFSET + 8));
+    }
+
+    @Override
+    public synchronized void close() {
+        commit();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't close payment ledger in %s", directory), e);
+        }
+    }
+
+    private void rollSegment() {
+        commit();
+        try {
+            // the mapping stays valid after the channel is closed
+            fullSegmentBuffers.put(segmentNumber, buffer);
+            channel.close();
+            openSegment(segmentNumber + 1);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't roll payment ledger in %s", directory), e);
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        Path segment = segmentOf(number);
+        boolean created = !Files.exists(segment);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+        segmentNumber = number;
+        position = 0;
+        committedPosition = 0;
+
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, recordsPerSegment);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != RECORD_SIZE || buffer.getInt(12) != recordsPerSegment) {
+            throw new PersistenceException(String.format("%s is not a compatible payment ledger segment", segment));
+        }
+    }
+
+    private Path segmentOf(int number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segmentList = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segmentList::add);
+        }
+        Collections.sort(segmentList);
+        return segmentList;
+    }
+
+    private static int segmentNumberOf(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private int countValidRecords(ByteBuffer segmentBuffer) {
+        int count = 0;
+        while (count < recordsPerSegment) {
+            int offset = HEADER_SIZE + count * RECORD_SIZE;
+            if (segmentBuffer.getInt(offset + CRC_OFFSET) != crc(segmentBuffer, offset)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private void clearRecordsFrom(int from) {
+        boolean cleared = false;
+        for (int i = from; i < recordsPerSegment; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            for (int j = 0; j < RECORD_SIZE; j += 8) {
+                if (buffer.getLong(offset + j) != 0) {
+                    for (int k = 0; k < RECORD_SIZE; k += 8) {
+                        buffer.putLong(offset + k, 0);
+                    }
+                    cleared = true;
+                    break;
+                }
+            }
+        }
+        if (cleared) {
+            buffer.force();
+        }
+    }
+
+    private ByteBuffer segmentBufferOf(long recordNumber) {
+        if (recordNumber < 0 || recordNumber >= size) {
+            throw new IndexOutOfBoundsException(String.format("record %d of %d", recordNumber, size));
+        }
+        return segmentBufferOf((int) (recordNumber / recordsPerSegment));
+    }
+
+    private ByteBuffer segmentBufferOf(int number) {
+        if (number == segmentNumber) {
+            return buffer;
+        }
+        MappedByteBuffer segmentBuffer = fullSegmentBuffers.get(number);
+        if (segmentBuffer == null) {
+            Path segment = segmentOf(number);
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                segmentBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            } catch (IOException e) {
+                throw new PersistenceException(String.format("can't read payment ledger in %s", directory), e);
+            }
+            fullSegmentBuffers.put(number, segmentBuffer);
+        }
+        return segmentBuffer;
+    }
+
+    private int offsetOf(long recordNumber) {
+        return HEADER_SIZE + (int) (recordNumber % recordsPerSegment) * RECORD_SIZE;
+    }
+
+    private static Payment readRecord(ByteBuffer segmentBuffer, int offset) {
+        return Payment.builder()
+                .id(new UUID(segmentBuffer.getLong(offset + ID_OFFSET), segmentBuffer.getLong(offset + ID_OFFSET + 8)))
+                .employeeId(new UUID(segmentBuffer.getLong(offset + EMPLOYEE_ID_OFFSET), segmentBuffer.getLong(offset + EMPLOYEE_ID_OFFSET + 8)))
+                .salaryAmountCents(segmentBuffer.getLong(offset + SALARY_AMOUNT_OFFSET))
+                .deductionCents(segmentBuffer.getLong(offset + DEDUCTION_OFFSET))
+                .paymentDate(LocalDate.ofEpochDay(segmentBuffer.getLong(offset + PAYMENT_DATE_OFFSET)))
+                .paymentType(PAYMENT_TYPES[segmentBuffer.get(offset + PAYMENT_TYPE_OFFSET)])
+                .paymentWay(PAYMENT_WAYS[segmentBuffer.get(offset + PAYMENT_WAY_OFFSET)])
+                .build();
+    }
+
+    private static int crc(ByteBuffer segmentBuffer, int offset) {
+        ByteBuffer record = segmentBuffer.duplicate();
+        record.position(offset).limit(offset + CRC_OFFSET);
+        CRC32 crc32 = new CRC32();
+        crc32.update(record);
+        return (int) crc32.getValue();
+    }
+}
@@ -1,9 +1,143 @@
 package com.ohdoking.payment.repository;
 
 import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentTotals;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * payments are unique by id. a payment whose id is already stored is not written again,
+ * so a payday run that is repeated with the same deterministic payment ids pays nobody twice.
+ * a payment counts as stored only once it is committed, so a save that fails can be retried.
+ * <p>
+ * stored payments are indexed in memory by their record number in the ledger when the ledger is opened
+ * and whenever payments are committed, see {@link PaymentHistoryIndex}. queries read the payments back from the ledger,
+ * so no payment object and no set of ids is kept on the heap.
+ * payment ids are random or derived from the run and the employee, so a stored payment with the same id has
+ * the same employee and date, and only the payments of the employee on that date are compared to find it.
+ */
 public class PaymentRepository {
-    public void savePaymentt(Payment payment) {
 
+    final private PaymentLedger paymentLedger;
+    final private PaymentHistoryIndex paymentHistoryIndex = new PaymentHistoryIndex();
+
+    public PaymentRepository(PaymentLedger paymentLedger) {
+        this.paymentLedger = paymentLedger;
+        long[] recordNumber = new long[1];
+        paymentLedger.forEach(payment -> {
+            if (!contains(payment)) {
+                paymentHistoryIndex.add(payment, recordNumber[0]);
+            }
+            recordNumber[0]++;
+        });
+    }
+
+    public synchronized void savePaymentt(Payment payment) {
+        savePayments(Collections.singletonList(payment));
+    }
+
+    /**
+     * appends every payment that isn't stored yet and commits them together, so the whole list costs one fsync
+     */
+    public synchronized void savePayments(List<Payment> paymentList) {
+        List<Payment> appendedList = new ArrayList<>(paymentList.size());
+        Set<UUID> appendedIds = new HashSet<>();
+        long firstRecordNumber = paymentLedger.size();
+        try {
+            for (Payment payment : paymentList) {
+                if (!appendedIds.contains(payment.getId()) && !contains(payment)) {
+                    appendedIds.add(payment.getId());
+                    paymentLedger.append(payment);
+                    appendedList.add(payment);
+                }
+            }
+            paymentLedger.commit();
+        } catch (RuntimeException e) {
+            // the payments committed when a full segment was rolled stay stored, the others are dropped
+            try {
+                int dropped = paymentLedger.rollback();
+                stored(appendedList.subList(0, Math.max(0, appendedList.size() - dropped)), firstRecordNumber);
+            } catch (RuntimeException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        }
+        stored(appendedList, firstRecordNumber);
+    }
+
+    /**
+     * the index is updated once payments are committed, so queries only see durable payments
+     */
+    private void stored(List<Payment> committedList, long firstRecordNumber) {
+        for (int i = 0; i < committedList.size(); i++) {
+            paymentHistoryIndex.add(committedList.get(i), firstRecordNumber + i);
+        }
+    }
+
+    /**
+     * @return true if a payment with the id of the payment is stored
+     */
+    public boolean contains(Payment payment) {
+        LocalDate paymentDate = payment.getPaymentDate();
+        for (long recordNumber : paymentHistoryIndex.findRecordNumbers(payment.getEmployeeId(), paymentDate, paymentDate)) {
+            if (payment.getId().equals(paymentLedger.readId(recordNumber))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * reads every stored payment in the order they were saved
+     */
+    public void forEachPayment(Consumer<Payment> consumer) {
+        paymentLedger.forEach(consumer);
+    }
+
+    /**
+     * reads the stored payments of the payment date in the order they were saved, without reading the ledger
+     */
+    public void forEachPaymentOn(LocalDate paymentDate, Consumer<Payment> consumer) {
+        paymentHistoryIndex.forEachRecordNumberOn(paymentDate, recordNumber -> consumer.accept(paymentLedger.read(recordNumber)));
+    }
+
+    /**
+     * @return payments of the employee between from and to (both inclusive) in order of date
+     */
+    public List<Payment> getPaymentsByEmployeeId(UUID employeeId, LocalDate from, LocalDate to) {
+        long[] recordNumbers = paymentHistoryIndex.findRecordNumbers(employeeId, from, to);
+        List<Payment> paymentList = new ArrayList<>(recordNumbers.length);
+        for (long recordNumber : recordNumbers) {
+            paymentList.add(paymentLedger.read(recordNumber));
+        }
+        return paymentList;
+    }
+
+    /**
+     * @return gross, before service charges are deducted, from the first day of the year of the date to the date (inclusive)
+     */
+    public long getYearToDateGrossCents(UUID employeeId, LocalDate date) {
+        return paymentHistoryIndex.getYearToDateGrossCents(employeeId, date);
+    }
+
+    /**
+     * @return gross, before service charges are deducted, from the first day of the quarter of the date to the date (inclusive)
+     */
+    public long getQuarterToDateGrossCents(UUID employeeId, LocalDate date) {
+        return paymentHistoryIndex.getQuarterToDateGrossCents(employeeId, date);
+    }
+
+    /**
+     * @return totals of the payments between from and to (both inclusive) by payment type and payment way
+     */
+    public PaymentTotals getTotals(LocalDate from, LocalDate to) {
+        return paymentHistoryIndex.getTotals(from, to);
     }
 }
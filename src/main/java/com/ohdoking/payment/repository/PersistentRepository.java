@@ -0,0 +1,27 @@
+package com.ohdoking.payment.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * repository whose state can be written into a snapshot and rebuilt from a snapshot and its log records
+ */
+public interface PersistentRepository {
+
+    /**
+     * @return tag written in front of every snapshot section and log record of this repository, should be unique and not 0
+     */
+    byte getRepositoryTag();
+
+    void attachJournal(RepositoryJournal journal);
+
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    void readSnapshot(DataInput in) throws IOException;
+
+    /**
+     * applies one log record written by this repository without recording it again
+     */
+    void replay(DataInput in) throws IOException;
+}
@@ -0,0 +1,113 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * binary format of the models in snapshots and log records
+ */
+final class RecordCodec {
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PaymentWay[] PAYMENT_WAYS = PaymentWay.values();
+
+    private RecordCodec() {
+    }
+
+    static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date.toEpochDay());
+    }
+
+    static LocalDate readDate(DataInput in) throws IOException {
+        return LocalDate.ofEpochDay(in.readLong());
+    }
+
+    static void writeEmployee(DataOutput out, Employee employee) throws IOException {
+        writeUuid(out, employee.getId());
+        out.writeUTF(employee.getName());
+        out.writeUTF(employee.getAddress());
+        out.writeByte(employee.getPaymentType().ordinal());
+        out.writeLong(employee.getHourlyRateCents());
+        out.writeLong(employee.getMonthlyPayCents());
+        out.writeLong(employee.getCommissionRatePpm());
+        out.writeByte(employee.getPaymentWay() == null ? -1 : employee.getPaymentWay().ordinal());
+    }
+
+    static Employee readEmployee(DataInput in) throws IOException {
+        Employee.EmployeeBuilder builder = Employee.builder()
+                .id(readUuid(in))
+                .name(in.readUTF())
+                .address(in.readUTF())
+                .paymentType(PAYMENT_TYPES[in.readByte()])
+                .hourlyRateCents(in.readLong())
+                .monthlyPayCents(in.readLong())
+                .commissionRatePpm(in.readLong());
+        byte paymentWay = in.readByte();
+        if (paymentWay >= 0) {
+            builder.paymentWay(PAYMENT_WAYS[paymentWay]);
+        }
+        return builder.build();
+    }
+
+    static void writeTimeCard(DataOutput out, TimeCard timeCard) throws IOException {
+        writeUuid(out, timeCard.getId());
+        writeUuid(out, timeCard.getEmployeeId());
+        writeDate(out, timeCard.getDate());
+        out.writeDouble(timeCard.getHours());
+    }
+
+    static TimeCard readTimeCard(DataInput in) throws IOException {
+        return TimeCard.builder()
+                .id(readUuid(in))
+                .employeeId(readUuid(in))
+                .date(readDate(in))
+                .hours(in.readDouble())
+                .build();
+    }
+
+    static void writeSaleReceipt(DataOutput out, SaleReceipt saleReceipt) throws IOException {
+        writeUuid(out, saleReceipt.getId());
+        writeUuid(out, saleReceipt.getEmployeeId());
+        writeDate(out, saleReceipt.getDate());
+        out.writeInt(saleReceipt.getAmount());
+    }
+
+    static SaleReceipt readSaleReceipt(DataInput in) throws IOException {
+        return SaleReceipt.builder()
+                .id(readUuid(in))
+                .employeeId(readUuid(in))
+                .date(readDate(in))
+                .amount(in.readInt())
+                .build();
+    }
+
+    static void writeServiceCharge(DataOutput out, ServiceCharge serviceCharge) throws IOException {
+        writeUuid(out, serviceCharge.getId());
+        writeUuid(out, serviceCharge.getEmployeeId());
+        writeDate(out, serviceCharge.getDate());
+        out.writeInt(serviceCharge.getAmount());
+    }
+
+    static ServiceCharge readServiceCharge(DataInput in) throws IOException {
+        return ServiceCharge.builder()
+                .id(readUuid(in))
+                .employeeId(readUuid(in))
+                .date(readDate(in))
+                .amount(in.readInt())
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ohdoking.payment.repository;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * records a mutation of a repository before it is applied.
+ * <p>
+ * repositories call {@link #record(byte, Object, RecordWriter, Runnable)} outside of their own locks
+ * and do the in memory change in the mutation, so the journal decides the order of log and state.
+ * mutations with the same order key are logged in the order they're applied,
+ * mutations with different keys may be logged in any order, so they have to commute.
+ */
+public interface RepositoryJournal {
+
+    /**
+     * journal of a repository that isn't persisted, it just applies the mutation
+     */
+    RepositoryJournal NONE = (repositoryTag, orderKey, writer, mutation) -> mutation.run();
+
+    /**
+     * @param orderKey e.g. the id of the changed employee
+     */
+    void record(byte repositoryTag, Object orderKey, RecordWriter writer, Runnable mutation);
+
+    /**
+     * records a mutation that commutes with every mutation of other threads, like adding a record with a new id.
+     * mutations of the same thread stay in order.
+     */
+    default void record(byte repositoryTag, RecordWriter writer, Runnable mutation) {
+        record(repositoryTag, Thread.currentThread(), writer, mutation);
+    }
+
+    @FunctionalInterface
+    interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+}
@@ -0,0 +1,471 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.exception.PersistenceException;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * local persistence of repositories with a write ahead log and periodic compact snapshots.
+ * <p>
+ * the directory holds snapshot-N.snap and wal-N.log files. snapshot-N holds the state of every repository
+ * before wal-N was started. opening loads the latest snapshot and replays only the logs written after it,
+ * so restart time is bounded by the snapshot size and the log tail, not the full history.
+ * <p>
+ * a mutation is encoded in the writer's thread, then appended to the buffer of its stripe and applied
+ * while holding only that stripe, picked by the order key of the mutation. so writers of different employees
+ * don't wait for each other, and mutations of one key are logged in the order they're applied.
+ * the writer then waits until its record is flushed: whoever holds this object moves the buffers of every stripe
+ * into the log and flushes them with one write (group commit), the others find their records already flushed.
+ * a snapshot holds this object and every stripe, so it sees no half applied mutation.
+ * <p>
+ * the directory is opened by one process at a time: {@link #open()} holds an exclusive lock on persistence.lock
+ * until it is closed, since it starts a new log and deletes the files a snapshot replaced.
+ * {@link #openReadOnly()}, e.g. for payday workers sharing the directory, only loads the repositories under a shared lock
+ * and writes nothing, so any number of readers can load the same directory while no writer has it open.
+ * <p>
+ * payments aren't handled here, {@link PaymentLedger} is their log already.
+ */
+public class RepositoryPersistence implements RepositoryJournal, Closeable {
+
+    private static final int SNAPSHOT_MAGIC = 0x534e4150;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int STRIPE_COUNT = 64;
+    private static final String LOCK_FILE = "persistence.lock";
+
+    /**
+     * journal of repositories opened read only
+     */
+    private static final RepositoryJournal READ_ONLY = (repositoryTag, orderKey, writer, mutation) -> {
+        throw new IllegalStateException("repositories are opened read only");
+    };
+
+    final private Path directory;
+    final private Map<Byte, PersistentRepository> repositoryMap = new LinkedHashMap<>();
+    final private Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    private volatile WriteAheadLog writeAheadLog;
+    private long generation;
+    private ScheduledExecutorService snapshotScheduler;
+    // channel of the lock file while the directory is locked, closing it releases the lock
+    private FileChannel lockChannel;
+    private boolean readOnly;
+
+    public RepositoryPersistence(Path directory, PersistentRepository... repositories) {
+        this.directory = directory;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+        for (PersistentRepository repository : repositories) {
+            if (repository.getRepositoryTag() == 0 || repositoryMap.put(repository.getRepositoryTag(), repository) != null) {
+                throw new IllegalArgumentException(String.format("repository tag %d is invalid or used twice", repository.getRepositoryTag()));
+            }
+        }
+    }
+
+    /**
+     * loads the latest snapshot, replays the log tail and starts logging the mutations of the repositories
+     */
+    /**
+     * @throws PersistenceException if another writer or a reader has the directory open
+     */
+    public synchronized void open() {
+        checkNotOpen();
+        try {
+            Files.createDirectories(directory);
+            lockDirectory(false);
+            try {
+                long base = latestGeneration(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).orElse(0);
+                generation = load(base) + 1;
+                writeAheadLog = new WriteAheadLog(fileOf(LOG_PREFIX, generation, LOG_SUFFIX));
+                deleteBefore(base);
+            } catch (IOException | RuntimeException e) {
+                unlockDirectory(e);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't open repositories in %s", directory), e);
+        }
+
+        repositoryMap.values().forEach(repository -> repository.attachJournal(this));
+    }
+
+    /**
+     * loads the latest snapshot and replays the log tail without writing anything. the directory is only locked while
+     * it is read, so a writer can open it afterwards. the repositories reject mutations from then on.
+     *
+     * @throws PersistenceException if a writer has the directory open
+     */
+    public synchronized void openReadOnly() {
+        checkNotOpen();
+        try {
+            Files.createDirectories(directory);
+            lockDirectory(true);
+            try {
+                load(latestGeneration(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).orElse(0));
+            } catch (IOException | RuntimeException e) {
+                unlockDirectory(e);
+                throw e;
+            }
+            unlockDirectory(null);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't open repositories in %s", directory), e);
+        }
+
+        readOnly = true;
+        repositoryMap.values().forEach(repository -> repository.attachJournal(READ_ONLY));
+    }
+
+    private void checkNotOpen() {
+        if (writeAheadLog != null || readOnly) {
+            throw new IllegalStateException("persistence is already open");
+        }
+    }
+
+    /**
+     * loads the snapshot of the base generation if there is one and replays the logs from it
+     *
+     * @return generation of the last log
+     */
+    private long load(long base) throws IOException {
+        if (base > 0) {
+            readSnapshot(fileOf(SNAPSHOT_PREFIX, base, SNAPSHOT_SUFFIX));
+        }
+        long last = base;
+        for (long logGeneration : generations(LOG_PREFIX, LOG_SUFFIX)) {
+            if (logGeneration >= base) {
+                WriteAheadLog.replay(fileOf(LOG_PREFIX, logGeneration, LOG_SUFFIX),
+                        (repositoryTag, in) -> repositoryOf(repositoryTag).replay(in));
+                last = Math.max(last, logGeneration);
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @param shared true for readers, which may hold it together but not with a writer
+     */
+    private void lockDirectory(boolean shared) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock(0, Long.MAX_VALUE, shared);
+        } catch (OverlappingFileLockException e) {
+            // held by another persistence of this process
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new PersistenceException(String.format("repositories in %s are opened by another process", directory));
+        }
+        lockChannel = channel;
+    }
+
+    /**
+     * @param failure failure to add a failure to unlock to, null to throw it
+     */
+    private void unlockDirectory(Exception failure) throws IOException {
+        if (lockChannel == null) {
+            return;
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        } finally {
+            lockChannel = null;
+        }
+    }
+
+    @Override
+    public void record(byte repositoryTag, Object orderKey, RecordWriter writer, Runnable mutation) {
+        if (writeAheadLog == null) {
+            throw new IllegalStateException("persistence is not open");
+        }
+        byte[] record;
+        try {
+            record = WriteAheadLog.encode(repositoryTag, writer);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't write log in %s", directory), e);
+        }
+
+        Stripe stripe = stripeOf(orderKey);
+        long ticket;
+        stripe.lock.lock();
+        try {
+            stripe.pending.write(record, 0, record.length);
+            ticket = ++stripe.appendedCount;
+            mutation.run();
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (stripe.flushedCount < ticket) {
+            flushStripes(stripe, ticket);
+        }
+    }
+
+    /**
+     * moves the buffered records of every stripe into the log and flushes it, unless another writer already did
+     */
+    private synchronized void flushStripes(Stripe waiting, long ticket) {
+        if (waiting.flushedCount >= ticket) {
+            return;
+        }
+        try {
+            drainStripes();
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't write log in %s", directory), e);
+        }
+    }
+
+    private void drainStripes() throws IOException {
+        if (writeAheadLog == null) {
+            throw new IllegalStateException("persistence is not open");
+        }
+        long[] appendedCounts = new long[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            Stripe stripe = stripes[i];
+            byte[] records;
+            long recordCount;
+            stripe.lock.lock();
+            try {
+                appendedCounts[i] = stripe.appendedCount;
+                recordCount = stripe.appendedCount - stripe.drainedCount;
+                if (recordCount == 0) {
+                    continue;
+                }
+                records = stripe.pending.toByteArray();
+                stripe.pending.reset();
+                stripe.drainedCount = stripe.appendedCount;
+            } finally {
+                stripe.lock.unlock();
+            }
+            writeAheadLog.append(records, 0, records.length, recordCount);
+        }
+        writeAheadLog.flush();
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i].flushedCount = appendedCounts[i];
+        }
+    }
+
+    private Stripe stripeOf(Object orderKey) {
+        int hash = orderKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    /**
+     * writes a compact snapshot of every repository, starts a new log and deletes the files the snapshot replaces
+     */
+    public synchronized void snapshot() {
+        if (writeAheadLog == null) {
+            throw new IllegalStateException("persistence is not open");
+        }
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            drainStripes();
+            long next = generation + 1;
+            writeSnapshot(next);
+
+            writeAheadLog.close();
+            generation = next;
+            writeAheadLog = new WriteAheadLog(fileOf(LOG_PREFIX, generation, LOG_SUFFIX));
+            deleteBefore(generation);
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't write snapshot in %s", directory), e);
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * takes a snapshot every period on a background thread, if anything was logged since the last one
+     */
+    public synchronized void scheduleSnapshots(long period, TimeUnit unit) {
+        if (snapshotScheduler != null) {
+            throw new IllegalStateException("snapshots are already scheduled");
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            synchronized (this) {
+                if (writeAheadLog != null && (writeAheadLog.getRecordCount() > 0 || hasPendingRecords())) {
+                    snapshot();
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * forces the log to disk
+     */
+    public synchronized void sync() {
+        try {
+            drainStripes();
+            writeAheadLog.sync();
+        } catch (IOException e) {
+            throw new PersistenceException(String.format("can't sync log in %s", directory), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+        if (writeAheadLog != null) {
+            // the directory is unlocked even if the log can't be closed
+            RuntimeException failure = null;
+            try {
+                drainStripes();
+                writeAheadLog.close();
+            } catch (IOException e) {
+                failure = new PersistenceException(String.format("can't close log in %s", directory), e);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            writeAheadLog = null;
+            try {
+                unlockDirectory(failure);
+            } catch (IOException e) {
+                failure = new PersistenceException(String.format("can't unlock %s", directory), e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private boolean hasPendingRecords() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.appendedCount > stripe.drainedCount) {
+                    return true;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        Path file = fileOf(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX);
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            for (PersistentRepository repository : repositoryMap.values()) {
+                out.writeByte(repository.getRepositoryTag());
+                repository.writeSnapshot(out);
+            }
+            out.writeByte(0);
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readSnapshot(Path file) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new PersistenceException(String.format("%s is not a compatible snapshot", file));
+            }
+            byte repositoryTag;
+            while ((repositoryTag = in.readByte()) != 0) {
+                repositoryOf(repositoryTag).readSnapshot(in);
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new PersistenceException(String.format("%s is corrupted", file));
+            }
+        }
+    }
+
+    private PersistentRepository repositoryOf(byte repositoryTag) {
+        PersistentRepository repository = repositoryMap.get(repositoryTag);
+        if (repository == null) {
+            throw new PersistenceException(String.format("no repository for tag %d", repositoryTag));
+        }
+        return repository;
+    }
+
+    private void deleteBefore(long base) throws IOException {
+        for (long snapshotGeneration : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshotGeneration < base) {
+                Files.deleteIfExists(fileOf(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX));
+            }
+        }
+        for (long logGeneration : generations(LOG_PREFIX, LOG_SUFFIX)) {
+            if (logGeneration < base) {
+                Files.deleteIfExists(fileOf(LOG_PREFIX, logGeneration, LOG_SUFFIX));
+            }
+        }
+    }
+
+    private OptionalLong latestGeneration(String prefix, String suffix) throws IOException {
+        List<Long> generationList = generations(prefix, suffix);
+        return generationList.isEmpty() ? OptionalLong.empty() : OptionalLong.of(generationList.get(generationList.size() - 1));
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> generationList = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                generationList.add(Long.parseLong(fileName.substring(prefix.length(), fileName.length() - suffix.length())));
+            }
+        }
+        Collections.sort(generationList);
+        return generationList;
+    }
+
+    private Path fileOf(String prefix, long fileGeneration, String suffix) {
+        return directory.resolve(String.format("%s%016d%s", prefix, fileGeneration, suffix));
+    }
+
+    /**
+     * records of one stripe not yet in the log, guarded by its lock except flushedCount which is only written by the flusher
+     */
+    private static class Stripe {
+        final private ReentrantLock lock = new ReentrantLock();
+        final private ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+        private long appendedCount;
+        private long drainedCount;
+        private volatile long flushedCount;
+    }
+}
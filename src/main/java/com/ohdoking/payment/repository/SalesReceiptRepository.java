@@ -2,15 +2,131 @@ package com.ohdoking.payment.repository;
 
 import com.ohdoking.payment.model.SaleReceipt;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
+
+public class SalesReceiptRepository implements PersistentRepository {
+
+    public static final byte REPOSITORY_TAG = 3;
+    private static final byte ADD = 1;
+    private static final byte ADD_ALL = 2;
+
+    final private Map<UUID, List<SaleReceipt>> saleReceiptMap = new HashMap<>();
+
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+    private volatile Consumer<SaleReceipt> restoreListener = saleReceipt -> {
+    };
 
-public class SalesReceiptRepository {
     public void createSaleReceipt(SaleReceipt saleReceipt) {
+        journal.record(REPOSITORY_TAG, out -> {
+            out.writeByte(ADD);
+            RecordCodec.writeSaleReceipt(out, saleReceipt);
+        }, () -> addSaleReceipt(saleReceipt));
+    }
+
+    /**
+     * writes a batch of sales receipts as one journal record
+     */
+    public void createSaleReceipts(List<SaleReceipt> saleReceiptList) {
+        journal.record(REPOSITORY_TAG, out -> {
+            out.writeByte(ADD_ALL);
+            out.writeInt(saleReceiptList.size());
+            for (SaleReceipt saleReceipt : saleReceiptList) {
+                RecordCodec.writeSaleReceipt(out, saleReceipt);
+            }
+        }, () -> addSaleReceipts(saleReceiptList));
+    }
+
+    private synchronized void addSaleReceipt(SaleReceipt saleReceipt) {
+        saleReceiptMap.computeIfAbsent(saleReceipt.getEmployeeId(), k -> new ArrayList<>()).add(saleReceipt);
+    }
+
+    private synchronized void addSaleReceipts(List<SaleReceipt> saleReceiptList) {
+        for (SaleReceipt saleReceipt : saleReceiptList) {
+            addSaleReceipt(saleReceipt);
+        }
+    }
+
+    /**
+     * @return sales receipts of the employee written on or after the date
+     */
+    public synchronized List<SaleReceipt> getListOfSalesReceiptById(UUID employeeId, LocalDate date) {
+        List<SaleReceipt> result = new ArrayList<>();
+        for (SaleReceipt saleReceipt : saleReceiptMap.getOrDefault(employeeId, Collections.emptyList())) {
+            if (!saleReceipt.getDate().isBefore(date)) {
+                result.add(saleReceipt);
+            }
+        }
+        return result;
+    }
+
+    public synchronized void forEachSaleReceipt(Consumer<SaleReceipt> consumer) {
+        for (List<SaleReceipt> saleReceiptList : saleReceiptMap.values()) {
+            saleReceiptList.forEach(consumer);
+        }
+    }
+
+    /**
+     * the listener is called for every sales receipt read from a snapshot or replayed from the log,
+     * so what is derived from sales receipts can be restored with them. there is one listener, setting it replaces the last one.
+     */
+    public void setRestoreListener(Consumer<SaleReceipt> restoreListener) {
+        this.restoreListener = restoreListener;
+    }
+
+    @Override
+    public byte getRepositoryTag() {
+        return REPOSITORY_TAG;
+    }
+
+    @Override
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public synchronized void writeSnapshot(DataOutput out) throws IOException {
+        int count = 0;
+        for (List<SaleReceipt> saleReceiptList : saleReceiptMap.values()) {
+            count += saleReceiptList.size();
+        }
+        out.writeInt(count);
+        for (List<SaleReceipt> saleReceiptList : saleReceiptMap.values()) {
+            for (SaleReceipt saleReceipt : saleReceiptList) {
+                RecordCodec.writeSaleReceipt(out, saleReceipt);
+            }
+        }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            restoreSaleReceipt(RecordCodec.readSaleReceipt(in));
+        }
+    }
+
+    @Override
+    public void replay(DataInput in) throws IOException {
+        byte operation = in.readByte();
+        if (operation == ADD) {
+            restoreSaleReceipt(RecordCodec.readSaleReceipt(in));
+        } else if (operation == ADD_ALL) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                restoreSaleReceipt(RecordCodec.readSaleReceipt(in));
+            }
+        } else {
+            throw new IOException(String.format("unknown sales receipt operation %d", operation));
+        }
     }
 
-    public List<SaleReceipt> getListOfSalesReceiptById(UUID employeeId, LocalDate date) {
-        return List.of(SaleReceipt.builder().build());
+    private void restoreSaleReceipt(SaleReceipt saleReceipt) {
+        addSaleReceipt(saleReceipt);
+        restoreListener.accept(saleReceipt);
     }
 }
@@ -1,15 +1,122 @@
 package com.ohdoking.payment.repository;
 
-import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Money;
 import com.ohdoking.payment.model.ServiceCharge;
 
-import java.util.UUID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * every service charge of every employee, with the total of each employee per month kept up to date on write.
+ * <p>
+ * the charges of a month are deducted together from the pay of the next month,
+ * so payday reads one total per employee instead of summing the charges.
+ */
+public class ServiceChargeRepository implements PersistentRepository {
+
+    public static final byte REPOSITORY_TAG = 4;
+
+    final private Map<UUID, EmployeeServiceCharges> chargesByEmployeeId = new ConcurrentHashMap<>();
+
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
 
-public class ServiceChargeRepository {
     public void createServiceCharge(ServiceCharge serviceCharge) {
+        journal.record(REPOSITORY_TAG, out -> RecordCodec.writeServiceCharge(out, serviceCharge), () -> putServiceCharge(serviceCharge));
+    }
+
+    private void putServiceCharge(ServiceCharge serviceCharge) {
+        chargesByEmployeeId.computeIfAbsent(serviceCharge.getEmployeeId(), employeeId -> new EmployeeServiceCharges())
+                .add(serviceCharge);
+    }
+
+    /**
+     * @return service charges of the employee in the order they were added
+     */
+    public List<ServiceCharge> findByEmployeeId(UUID employeeId) {
+        EmployeeServiceCharges charges = chargesByEmployeeId.get(employeeId);
+        return charges == null ? Collections.emptyList() : charges.list();
+    }
+
+    /**
+     * @return total of the service charges of the employee dated in the month, in cents
+     */
+    public long getDeductionCents(UUID employeeId, YearMonth month) {
+        EmployeeServiceCharges charges = chargesByEmployeeId.get(employeeId);
+        if (charges == null) {
+            return 0;
+        }
+        return charges.deductionCentsByMonth.getOrDefault(month, 0L);
+    }
+
+    /**
+     * @return total of the service charges dated in the month grouped by employee id.
+     * employees without service charge in the month are not in the map.
+     */
+    public Map<UUID, Long> getDeductionCentsByIds(Set<UUID> employeeIds, YearMonth month) {
+        Map<UUID, Long> result = new HashMap<>();
+        for (UUID employeeId : employeeIds) {
+            EmployeeServiceCharges charges = chargesByEmployeeId.get(employeeId);
+            Long deductionCents = charges == null ? null : charges.deductionCentsByMonth.get(month);
+            if (deductionCents != null) {
+                result.put(employeeId, deductionCents);
+            }
+        }
+        return result;
     }
 
-    public ServiceCharge findById(UUID employeeId) {
-        return ServiceCharge.builder().build();
+    @Override
+    public byte getRepositoryTag() {
+        return REPOSITORY_TAG;
+    }
+
+    @Override
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        List<ServiceCharge> serviceChargeList = new ArrayList<>();
+        for (EmployeeServiceCharges charges : chargesByEmployeeId.values()) {
+            serviceChargeList.addAll(charges.list());
+        }
+        out.writeInt(serviceChargeList.size());
+        for (ServiceCharge serviceCharge : serviceChargeList) {
+            RecordCodec.writeServiceCharge(out, serviceCharge);
+        }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            putServiceCharge(RecordCodec.readServiceCharge(in));
+        }
+    }
+
+    @Override
+    public void replay(DataInput in) throws IOException {
+        putServiceCharge(RecordCodec.readServiceCharge(in));
+    }
+
+    /**
+     * charges are added under the lock of the employee, totals are read without lock
+     */
+    private static class EmployeeServiceCharges {
+        final private List<ServiceCharge> serviceChargeList = new ArrayList<>();
+        final private Map<YearMonth, Long> deductionCentsByMonth = new ConcurrentHashMap<>();
+
+        synchronized void add(ServiceCharge serviceCharge) {
+            serviceChargeList.add(serviceCharge);
+            deductionCentsByMonth.merge(YearMonth.from(serviceCharge.getDate()), Money.ofUnits(serviceCharge.getAmount()), Long::sum);
+        }
+
+        synchronized List<ServiceCharge> list() {
+            return new ArrayList<>(serviceChargeList);
+        }
     }
 }
@@ -0,0 +1,231 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.TimeCard;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * column oriented storage of the time cards of one employee, sorted by date.
+ * <p>
+ * each time card is one entry in every primitive column,
+ * so no TimeCard, UUID, LocalDate or Double object is kept per card.
+ * TimeCard objects are only created when cards are read.
+ * the epoch day column is sorted, so a date range is found by binary search
+ * and costs O(log n) plus the cards in the range. cards of the same date keep the order they were added.
+ * <p>
+ * one writer at a time (the caller has to guard {@link #add(TimeCard)}), any number of readers without lock.
+ * a card that is not older than the last one is appended: it is written into the columns before the volatile size
+ * is raised. an older card is inserted into a copy of the columns which is then published as a whole,
+ * so published columns are never shifted under a reader. a reader that reads the columns and then their size
+ * sees a sorted view of every card below it.
+ * cards usually come in date order, so inserting into a copy is the rare case.
+ * a chunk of cards is added with {@link #addAll(List)}, which merges the sorted chunk into one copy,
+ * so a chunk costs O(n + k) however old its cards are instead of one copy per older card.
+ */
+class TimeCardColumns {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    final private UUID employeeId;
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    TimeCardColumns(UUID employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    void add(TimeCard timeCard) {
+        Columns current = columns;
+        int rowCount = current.size;
+        int epochDay = Math.toIntExact(timeCard.getDate().toEpochDay());
+
+        if (rowCount == 0 || current.epochDays[rowCount - 1] <= epochDay) {
+            if (rowCount == current.hours.length) {
+                current = current.copy(rowCount * 2, rowCount, -1);
+                columns = current;
+            }
+            current.set(rowCount, timeCard, epochDay);
+            current.size = rowCount + 1;
+        } else {
+            // after the cards of the same date
+            int row = current.upperBound(epochDay, rowCount);
+            int capacity = rowCount == current.hours.length ? rowCount * 2 : current.hours.length;
+            Columns inserted = current.copy(capacity, rowCount, row);
+            inserted.set(row, timeCard, epochDay);
+            inserted.size = rowCount + 1;
+            columns = inserted;
+        }
+    }
+
+    /**
+     * adds cards sorted by date, the same as adding them one by one, but older cards cost one copy for all of them
+     */
+    void addAll(List<TimeCard> sortedTimeCards) {
+        if (sortedTimeCards.isEmpty()) {
+            return;
+        }
+        Columns current = columns;
+        int rowCount = current.size;
+        int firstEpochDay = Math.toIntExact(sortedTimeCards.get(0).getDate().toEpochDay());
+        if (rowCount == 0 || current.epochDays[rowCount - 1] <= firstEpochDay) {
+            for (TimeCard timeCard : sortedTimeCards) {
+                add(timeCard);
+            }
+            return;
+        }
+
+        // cards of the same date keep the order they were added: stored cards first, then the chunk
+        int mergedCount = rowCount + sortedTimeCards.size();
+        Columns merged = new Columns(Math.max(mergedCount, current.hours.length));
+        int row = 0;
+        int mergedRow = 0;
+        for (TimeCard timeCard : sortedTimeCards) {
+            int epochDay = Math.toIntExact(timeCard.getDate().toEpochDay());
+            int end = current.upperBound(epochDay, rowCount);
+            if (end > row) {
+                Columns.copyRows(current, row, merged, mergedRow, end - row);
+                mergedRow += end - row;
+                row = end;
+            }
+            merged.set(mergedRow++, timeCard, epochDay);
+        }
+        Columns.copyRows(current, row, merged, mergedRow, rowCount - row);
+        merged.size = mergedCount;
+        columns = merged;
+    }
+
+    /**
+     * @return time cards between from and to epoch day (both inclusive) in order of date
+     */
+    List<TimeCard> find(long fromEpochDay, long toEpochDay) {
+        Columns current = columns;
+        int rowCount = current.size;
+        if (fromEpochDay > toEpochDay || rowCount == 0) {
+            return Collections.emptyList();
+        }
+        int from = current.lowerBound(clamp(fromEpochDay), rowCount);
+        List<TimeCard> result = new ArrayList<>();
+        for (int row = from; row < rowCount && current.epochDays[row] <= toEpochDay; row++) {
+            result.add(current.view(employeeId, row));
+        }
+        return result;
+    }
+
+    void forEach(Consumer<TimeCard> consumer) {
+        Columns current = columns;
+        int rowCount = current.size;
+        for (int row = 0; row < rowCount; row++) {
+            consumer.accept(current.view(employeeId, row));
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        Columns current = columns;
+        int rowCount = current.size;
+        for (int row = 0; row < rowCount; row++) {
+            RecordCodec.writeTimeCard(out, current.view(employeeId, row));
+        }
+    }
+
+    int size() {
+        return columns.size;
+    }
+
+    private static int clamp(long epochDay) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+    }
+
+    private static class Columns {
+        final private long[] idMostSigBits;
+        final private long[] idLeastSigBits;
+        final private int[] epochDays;
+        final private double[] hours;
+        private volatile int size;
+
+        Columns(int capacity) {
+            this(new long[capacity], new long[capacity], new int[capacity], new double[capacity]);
+        }
+
+        private Columns(long[] idMostSigBits, long[] idLeastSigBits, int[] epochDays, double[] hours) {
+            this.idMostSigBits = idMostSigBits;
+            this.idLeastSigBits = idLeastSigBits;
+            this.epochDays = epochDays;
+            this.hours = hours;
+        }
+
+        /**
+         * @param gap row left free for a card to be inserted, -1 for none
+         */
+        Columns copy(int capacity, int rowCount, int gap) {
+            Columns copy = new Columns(capacity);
+            if (gap < 0) {
+                copyRows(this, 0, copy, 0, rowCount);
+                copy.size = rowCount;
+            } else {
+                copyRows(this, 0, copy, 0, gap);
+                copyRows(this, gap, copy, gap + 1, rowCount - gap);
+            }
+            return copy;
+        }
+
+        void set(int row, TimeCard timeCard, int epochDay) {
+            idMostSigBits[row] = timeCard.getId().getMostSignificantBits();
+            idLeastSigBits[row] = timeCard.getId().getLeastSignificantBits();
+            epochDays[row] = epochDay;
+            hours[row] = timeCard.getHours();
+        }
+
+        /**
+         * @return first row whose epoch day is not before the epoch day, rowCount if there is none
+         */
+        int lowerBound(int epochDay, int rowCount) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (epochDays[middle] < epochDay) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return first row whose epoch day is after the epoch day, rowCount if there is none
+         */
+        int upperBound(int epochDay, int rowCount) {
+            int low = 0;
+            int high = rowCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (epochDays[middle] <= epochDay) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        TimeCard view(UUID employeeId, int row) {
+            return TimeCard.builder()
+                    .id(new UUID(idMostSigBits[row], idLeastSigBits[row]))
+                    .employeeId(employeeId)
+                    .date(LocalDate.ofEpochDay(epochDays[row]))
+                    .hours(hours[row])
+                    .build();
+        }
+
+        private static void copyRows(Columns source, int sourceRow, Columns target, int targetRow, int length) {
+            System.arraycopy(source.idMostSigBits, sourceRow, target.idMostSigBits, targetRow, length);
+            System.arraycopy(source.idLeastSigBits, sourceRow, target.idLeastSigBits, targetRow, length);
+            System.arraycopy(source.epochDays, sourceRow, target.epochDays, targetRow, length);
+            System.arraycopy(source.hours, sourceRow, target.hours, targetRow, length);
+        }
+    }
+}
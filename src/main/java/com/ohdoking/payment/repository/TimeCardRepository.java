@@ -2,16 +2,182 @@ package com.ohdoking.payment.repository;
 
 import com.ohdoking.payment.model.TimeCard;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * time cards kept in columns per employee, sorted by date, see {@link TimeCardColumns}.
+ * <p>
+ * writers are striped by employee id, writers of employees in different stripes never contend.
+ * reads take no lock at all, they see every card written before they started and maybe some written meanwhile.
+ */
+public class TimeCardRepository implements PersistentRepository {
+
+    public static final byte REPOSITORY_TAG = 2;
+    private static final byte ADD = 1;
+    private static final byte ADD_ALL = 2;
+
+    private static final int STRIPE_COUNT = 64;
+
+    final private Map<UUID, TimeCardColumns> columnsByEmployeeId = new ConcurrentHashMap<>();
+    final private Object[] stripeLocks = new Object[STRIPE_COUNT];
+    final private LongAdder size = new LongAdder();
+
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+    private volatile Consumer<TimeCard> restoreListener = timeCard -> {
+    };
+
+    public TimeCardRepository() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripeLocks[i] = new Object();
+        }
+    }
 
-public class TimeCardRepository {
     public void createTimeCard(TimeCard t){
+        // cards of the same date keep their order in the log too
+        journal.record(REPOSITORY_TAG, t.getEmployeeId(), out -> {
+            out.writeByte(ADD);
+            RecordCodec.writeTimeCard(out, t);
+        }, () -> addTimeCard(t));
+    }
+
+    /**
+     * writes a chunk of time cards as one journal record
+     */
+    public void createTimeCards(List<TimeCard> timeCardList) {
+        journal.record(REPOSITORY_TAG, out -> {
+            out.writeByte(ADD_ALL);
+            out.writeInt(timeCardList.size());
+            for (TimeCard t : timeCardList) {
+                RecordCodec.writeTimeCard(out, t);
+            }
+        }, () -> addTimeCards(timeCardList));
+    }
+
+    private void addTimeCard(TimeCard t) {
+        synchronized (stripeLockOf(t.getEmployeeId())) {
+            columnsByEmployeeId.computeIfAbsent(t.getEmployeeId(), TimeCardColumns::new).add(t);
+        }
+        size.increment();
+    }
 
+    /**
+     * the cards of each employee are sorted by date and merged into the columns at once, see {@link TimeCardColumns#addAll(List)}
+     */
+    private void addTimeCards(List<TimeCard> timeCardList) {
+        Map<UUID, List<TimeCard>> timeCardsByEmployeeId = new LinkedHashMap<>();
+        for (TimeCard t : timeCardList) {
+            timeCardsByEmployeeId.computeIfAbsent(t.getEmployeeId(), employeeId -> new ArrayList<>()).add(t);
+        }
+        for (Map.Entry<UUID, List<TimeCard>> entry : timeCardsByEmployeeId.entrySet()) {
+            List<TimeCard> employeeTimeCards = entry.getValue();
+            // stable, so cards of the same date keep their order
+            employeeTimeCards.sort(Comparator.comparing(TimeCard::getDate));
+            synchronized (stripeLockOf(entry.getKey())) {
+                columnsByEmployeeId.computeIfAbsent(entry.getKey(), TimeCardColumns::new).addAll(employeeTimeCards);
+            }
+            size.add(employeeTimeCards.size());
+        }
     }
 
+    /**
+     * @return time cards of the employee written on or after the date
+     */
     public List<TimeCard> getListOfTimeCardById(UUID employeeId, LocalDate date) {
-        return List.of(TimeCard.builder().build());
+        return findTimeCards(employeeId, date.toEpochDay(), Long.MAX_VALUE);
+    }
+
+    /**
+     * @return time cards of the employee between from and to (both inclusive) in order of date.
+     * the range is found by binary search, so the cost is proportional to the number of cards returned.
+     */
+    public List<TimeCard> getTimeCards(UUID employeeId, LocalDate from, LocalDate to) {
+        return findTimeCards(employeeId, from.toEpochDay(), to.toEpochDay());
+    }
+
+    private List<TimeCard> findTimeCards(UUID employeeId, long fromEpochDay, long toEpochDay) {
+        TimeCardColumns timeCardColumns = columnsByEmployeeId.get(employeeId);
+        if (timeCardColumns == null) {
+            return Collections.emptyList();
+        }
+        return timeCardColumns.find(fromEpochDay, toEpochDay);
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    public void forEachTimeCard(Consumer<TimeCard> consumer) {
+        for (TimeCardColumns timeCardColumns : columnsByEmployeeId.values()) {
+            timeCardColumns.forEach(consumer);
+        }
+    }
+
+    /**
+     * the listener is called for every time card read from a snapshot or replayed from the log,
+     * so what is derived from time cards can be restored with them. there is one listener, setting it replaces the last one.
+     */
+    public void setRestoreListener(Consumer<TimeCard> restoreListener) {
+        this.restoreListener = restoreListener;
+    }
+
+    @Override
+    public byte getRepositoryTag() {
+        return REPOSITORY_TAG;
+    }
+
+    @Override
+    public void attachJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * called while the journal holds back writers, so count and cards match
+     */
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeInt(size());
+        for (TimeCardColumns timeCardColumns : columnsByEmployeeId.values()) {
+            timeCardColumns.writeTo(out);
+        }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            restoreTimeCard(RecordCodec.readTimeCard(in));
+        }
+    }
+
+    @Override
+    public void replay(DataInput in) throws IOException {
+        byte operation = in.readByte();
+        if (operation == ADD) {
+            restoreTimeCard(RecordCodec.readTimeCard(in));
+        } else if (operation == ADD_ALL) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                restoreTimeCard(RecordCodec.readTimeCard(in));
+            }
+        } else {
+            throw new IOException(String.format("unknown time card operation %d", operation));
+        }
+    }
+
+    private void restoreTimeCard(TimeCard t) {
+        addTimeCard(t);
+        restoreListener.accept(t);
+    }
+
+    private Object stripeLockOf(UUID employeeId) {
+        int hash = employeeId.hashCode();
+        return stripeLocks[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
     }
 }
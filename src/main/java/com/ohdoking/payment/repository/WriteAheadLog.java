@@ -0,0 +1,123 @@
+package com.ohdoking.payment.repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * one log file of {@link RepositoryPersistence}.
+ * <p>
+ * a record is [int length][byte repository tag][payload][int crc32 of tag and payload].
+ * records are encoded by {@link #encode(byte, RepositoryJournal.RecordWriter)} in the writer's thread
+ * and appended as bytes, {@link #flush()} hands them to the operating system so they survive a crash of the process
+ * and {@link #sync()} forces them to disk.
+ * <p>
+ * not thread safe, the caller has to guard it.
+ */
+class WriteAheadLog implements Closeable {
+
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    final private FileChannel channel;
+    final private OutputStream out;
+    private long recordCount;
+
+    WriteAheadLog(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+    }
+
+    /**
+     * @return the record as it's written into the file
+     */
+    static byte[] encode(byte repositoryTag, RepositoryJournal.RecordWriter writer) throws IOException {
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        recordOut.writeInt(0);
+        recordOut.writeByte(repositoryTag);
+        writer.write(recordOut);
+        recordOut.writeInt(0);
+
+        byte[] record = recordBytes.toByteArray();
+        int length = record.length - 8;
+        CRC32 crc32 = new CRC32();
+        crc32.update(record, 4, length);
+        ByteBuffer.wrap(record).putInt(0, length).putInt(record.length - 4, (int) crc32.getValue());
+        return record;
+    }
+
+    /**
+     * @param records     encoded records one after another
+     * @param recordCount number of records in the bytes
+     */
+    void append(byte[] records, int offset, int length, long recordCount) throws IOException {
+        out.write(records, offset, length);
+        this.recordCount += recordCount;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        out.close();
+    }
+
+    /**
+     * hands every intact record of the file to the consumer and stops at the first torn or broken one
+     *
+     * @return number of records replayed
+     */
+    static long replay(Path file, RecordConsumer consumer) throws IOException {
+        long count = 0;
+        CRC32 crc32 = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                byte[] record;
+                int crc;
+                try {
+                    length = in.readInt();
+                    if (length < 1 || length > MAX_RECORD_LENGTH) {
+                        return count;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                    crc = in.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+
+                crc32.reset();
+                crc32.update(record, 0, length);
+                if (crc != (int) crc32.getValue()) {
+                    return count;
+                }
+
+                consumer.accept(record[0], new DataInputStream(new ByteArrayInputStream(record, 1, length - 1)));
+                count++;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(byte repositoryTag, DataInput in) throws IOException;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ohdoking.payment.service;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs time card, sales receipt and service charge submissions of many concurrent callers on an executor,
+ * by default {@link IngestionExecutors#newExecutor()} (virtual threads on jdk 21 or later).
+ * <p>
+ * the services and repositories behind it are safe for concurrent writers, so submissions are not serialized here.
+ * a future fails with the exception the service throws, e.g. ResourceNotFoundException for an unknown employee.
+ */
+@RequiredArgsConstructor
+public class ConcurrentIngestionService implements Closeable {
+
+    final private TimeCardService timeCardService;
+    final private SalesReceiptService salesReceiptService;
+    final private ServiceChargeService serviceChargeService;
+    final private ExecutorService executor;
+
+    public ConcurrentIngestionService(TimeCardService timeCardService, SalesReceiptService salesReceiptService, ServiceChargeService serviceChargeService) {
+        this(timeCardService, salesReceiptService, serviceChargeService, IngestionExecutors.newExecutor());
+    }
+
+    public CompletableFuture<Void> submitTimeCard(UUID employeeId, LocalDate localDate, Double hours) {
+        return CompletableFuture.runAsync(() -> timeCardService.addTimeCard(employeeId, localDate, hours), executor);
+    }
+
+    public CompletableFuture<Void> submitSalesReceipt(UUID employeeId, LocalDate localDate, Integer amount) {
+        return CompletableFuture.runAsync(() -> salesReceiptService.addSalesReceipt(employeeId, localDate, amount), executor);
+    }
+
+    public CompletableFuture<Void> submitServiceCharge(UUID employeeId, LocalDate localDate, Integer amount) {
+        return CompletableFuture.runAsync(() -> serviceChargeService.addServiceCharge(employeeId, localDate, amount), executor);
+    }
+
+    /**
+     * stops accepting submissions and waits for the running ones
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
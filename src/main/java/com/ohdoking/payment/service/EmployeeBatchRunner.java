@@ -0,0 +1,148 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * runs a calculation over streamed employees the way payday does:
+ * employees are read one batch at a time and a batch is split into shards calculated in parallel.
+ * <p>
+ * used by {@link PaymentService} and {@link PayrollSimulationService}, which keep what they do per batch and per shard.
+ */
+class EmployeeBatchRunner {
+
+    /**
+     * number of worker threads. 1 calculates in the caller's thread.
+     */
+    private int parallelism;
+
+    /**
+     * max number of employees calculated by one fork join task
+     */
+    private int shardSize = 1024;
+
+    /**
+     * number of employees passed to the batch consumer together
+     */
+    private int batchSize;
+
+    EmployeeBatchRunner(int parallelism, int batchSize) {
+        setParallelism(parallelism);
+        setBatchSize(batchSize);
+    }
+
+    /**
+     * @return pool for a run, null when the run calculates in the caller's thread. the caller shuts it down.
+     */
+    ForkJoinPool newPool() {
+        return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * passes the employees of the stream accepted by the filter to the consumer in batches of batch size,
+     * the last batch may be smaller. the list is reused after the consumer returns. the stream is closed.
+     */
+    void forEachBatch(Stream<Employee> employeeStream, Predicate<Employee> filter, Consumer<List<Employee>> batchConsumer) {
+        List<Employee> employeeList = new ArrayList<>(batchSize);
+        try (Stream<Employee> stream = employeeStream) {
+            Iterator<Employee> employeeIterator = stream.iterator();
+            while (employeeIterator.hasNext()) {
+                Employee employee = employeeIterator.next();
+                if (!filter.test(employee)) {
+                    continue;
+                }
+                employeeList.add(employee);
+                if (employeeList.size() == batchSize) {
+                    batchConsumer.accept(employeeList);
+                    employeeList.clear();
+                }
+            }
+        }
+        if (!employeeList.isEmpty()) {
+            batchConsumer.accept(employeeList);
+        }
+    }
+
+    /**
+     * calculates rows 0 to count in shards, in the pool or in the caller's thread without a pool.
+     * results are merged left to right, so they are in the same order as the sequential path.
+     */
+    <R> R calculate(ForkJoinPool pool, int count, ShardCalculation<R> calculation, BinaryOperator<R> merge) {
+        if (pool == null) {
+            return calculation.calculate(0, count);
+        }
+        return pool.invoke(new ShardTask<>(calculation, merge, 0, count));
+    }
+
+    boolean isFullBatch(List<Employee> employeeList) {
+        return employeeList.size() == batchSize;
+    }
+
+    void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism should be greater than 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    void setShardSize(int shardSize) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("shardSize should be greater than 0");
+        }
+        this.shardSize = shardSize;
+    }
+
+    void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize should be greater than 0");
+        }
+        this.batchSize = batchSize;
+    }
+
+    interface ShardCalculation<R> {
+        /**
+         * @return result of rows from (inclusive) to to (exclusive)
+         */
+        R calculate(int from, int to);
+    }
+
+    /**
+     * splits the rows in half until a shard is small enough, then calculates the shard
+     */
+    private class ShardTask<R> extends RecursiveTask<R> {
+
+        final private ShardCalculation<R> calculation;
+        final private BinaryOperator<R> merge;
+        final private int from;
+        final private int to;
+
+        ShardTask(ShardCalculation<R> calculation, BinaryOperator<R> merge, int from, int to) {
+            this.calculation = calculation;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= shardSize) {
+                return calculation.calculate(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ShardTask<R> left = new ShardTask<>(calculation, merge, from, middle);
+            ShardTask<R> right = new ShardTask<>(calculation, merge, middle, to);
+            left.fork();
+            R rightResult = right.compute();
+            return merge.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.metrics.Counter;
+import com.ohdoking.payment.metrics.MetricsRegistry;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.repository.EmployeeRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * bounded read through cache of employees in front of EmployeeRepository, used to validate ingested records.
+ * <p>
+ * employees are split into segments by id, each segment is a lru map guarded by its own lock,
+ * so lookups of different employees rarely contend and a full segment evicts its least recently used employee.
+ * unknown employees are not cached.
+ * <p>
+ * a miss loads from the repository while holding the segment lock and {@link #invalidate(UUID)} takes the same lock,
+ * so an employee that is changed in the repository and then invalidated can't be put back stale.
+ * {@link #getEmployees(Set)} takes each segment lock once and loads all misses with one repository call without a lock,
+ * the loaded employees are only cached in a segment that wasn't invalidated meanwhile.
+ */
+public class EmployeeCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 100000;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    final private EmployeeRepository employeeRepository;
+    final private Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    final private LongAdder hitCount = new LongAdder();
+    final private LongAdder missCount = new LongAdder();
+    final private LongAdder evictionCount = new LongAdder();
+
+    private Counter hitCounter = Counter.NOOP;
+    private Counter missCounter = Counter.NOOP;
+    private Counter evictionCounter = Counter.NOOP;
+
+    public EmployeeCache(EmployeeRepository employeeRepository) {
+        this(employeeRepository, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public EmployeeCache(EmployeeRepository employeeRepository, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize should be greater than 0");
+        }
+        this.employeeRepository = employeeRepository;
+        int segmentSize = Math.max(1, (maximumSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * counters employeeCache.hit, employeeCache.miss and employeeCache.eviction, counted from when the registry is set
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.hitCounter = metricsRegistry.counter("employeeCache.hit");
+        this.missCounter = metricsRegistry.counter("employeeCache.miss");
+        this.evictionCounter = metricsRegistry.counter("employeeCache.eviction");
+    }
+
+    /**
+     * @return the employee, null if it doesn't exist
+     */
+    public Employee getEmployee(UUID id) {
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            Employee employee = segment.get(id);
+            if (employee != null) {
+                hitCount.increment();
+                hitCounter.increment();
+                return employee;
+            }
+            missCount.increment();
+            missCounter.increment();
+            employee = employeeRepository.getEmployee(id);
+            if (employee != null) {
+                segment.put(id, employee);
+            }
+            return employee;
+        }
+    }
+
+    /**
+     * @return employees of the ids by id, ids of unknown employees are not in the map
+     */
+    public Map<UUID, Employee> getEmployees(Set<UUID> ids) {
+        Map<UUID, Employee> result = new HashMap<>(ids.size() * 2);
+        List<List<UUID>> idsBySegment = new ArrayList<>(SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            idsBySegment.add(new ArrayList<>());
+        }
+        for (UUID id : ids) {
+            idsBySegment.get(segmentIndexOf(id)).add(id);
+        }
+
+        Set<UUID> missedIds = new HashSet<>();
+        long[] invalidationCounts = new long[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            List<UUID> segmentIds = idsBySegment.get(i);
+            if (segmentIds.isEmpty()) {
+                continue;
+            }
+            Segment segment = segments[i];
+            synchronized (segment) {
+                invalidationCounts[i] = segment.invalidationCount;
+                for (UUID id : segmentIds) {
+                    Employee employee = segment.get(id);
+                    if (employee != null) {
+                        result.put(id, employee);
+                    } else {
+                        missedIds.add(id);
+                    }
+                }
+            }
+        }
+        hitCount.add(result.size());
+        missCount.add(missedIds.size());
+        hitCounter.add(result.size());
+        missCounter.add(missedIds.size());
+        if (missedIds.isEmpty()) {
+            return result;
+        }
+
+        Map<UUID, Employee> loaded = employeeRepository.getEmployees(missedIds);
+        result.putAll(loaded);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            Segment segment = segments[i];
+            synchronized (segment) {
+                if (segment.invalidationCount != invalidationCounts[i]) {
+                    continue;
+                }
+                for (UUID id : idsBySegment.get(i)) {
+                    Employee employee = loaded.get(id);
+                    if (employee != null) {
+                        segment.put(id, employee);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * drops the employee, to be called after it's added, changed or deleted in the repository
+     */
+    public void invalidate(UUID id) {
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            segment.remove(id);
+            segment.invalidationCount++;
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.invalidationCount++;
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentOf(UUID id) {
+        return segments[segmentIndexOf(id)];
+    }
+
+    private static int segmentIndexOf(UUID id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+    private class Segment extends LinkedHashMap<UUID, Employee> {
+
+        final private int maximumSize;
+        // raised by every invalidation, guarded by the segment
+        private long invalidationCount;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Employee> eldest) {
+            if (size() > maximumSize) {
+                evictionCount.increment();
+                evictionCounter.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
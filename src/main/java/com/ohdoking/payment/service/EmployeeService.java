@@ -1,17 +1,21 @@
 package com.ohdoking.payment.service;
 
 import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Money;
 import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
 import com.ohdoking.payment.repository.EmployeeRepository;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class EmployeeService {
 
     final private EmployeeRepository employeeRepository;
+    final private EmployeeCache employeeCache;
 
     public void addEmpWithCommission(String name, String address, PaymentType paymentType, Double monthlyPay, Double commissionRate) {
         if (monthlyPay == null || commissionRate == null) {
@@ -22,8 +26,8 @@ public class EmployeeService {
                 .name(name)
                 .address(address)
                 .paymentType(paymentType)
-                .monthlyPay(monthlyPay)
-                .commissionRate(commissionRate)
+                .monthlyPayCents(Money.toCents(monthlyPay))
+                .commissionRatePpm(Money.toPpm(commissionRate))
                 .build());
 
     }
@@ -37,7 +41,7 @@ public class EmployeeService {
                 .name(name)
                 .address(address)
                 .paymentType(paymentType)
-                .monthlyPay(monthlyPay)
+                .monthlyPayCents(Money.toCents(monthlyPay))
                 .build());
     }
 
@@ -50,20 +54,46 @@ public class EmployeeService {
                 .name(name)
                 .address(address)
                 .paymentType(paymentType)
-                .hourlyRate(hourlyRate)
+                .hourlyRateCents(Money.toCents(hourlyRate))
                 .build());
     }
 
     private void addEmp(Employee employee) {
         employeeRepository.addEmployee(employee);
+        employeeCache.invalidate(employee.getId());
     }
 
     public void delEmp(UUID id) {
         employeeRepository.deleteEmployee(id);
+        employeeCache.invalidate(id);
     }
 
     public List<Employee> getListOfEmployee() {
         return employeeRepository.getListOfEmployee();
     }
 
+    public Stream<Employee> streamEmployees() {
+        return employeeRepository.streamEmployees();
+    }
+
+    public Stream<Employee> streamEmployeesByPaymentType(PaymentType paymentType) {
+        return employeeRepository.streamEmployeesByPaymentType(paymentType);
+    }
+
+    public Stream<Employee> streamEmployeesByPaymentType(PaymentType paymentType, UUID afterEmployeeId) {
+        return employeeRepository.streamEmployeesByPaymentType(paymentType, afterEmployeeId);
+    }
+
+    public Employee getEmployee(UUID id) {
+        return employeeRepository.getEmployee(id);
+    }
+
+    public List<Employee> getListOfEmployeeByPaymentType(PaymentType paymentType) {
+        return employeeRepository.getListOfEmployeeByPaymentType(paymentType);
+    }
+
+    public List<Employee> getListOfEmployeeByPaymentWay(PaymentWay paymentWay) {
+        return employeeRepository.getListOfEmployeeByPaymentWay(paymentWay);
+    }
+
 }
@@ -0,0 +1,102 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Money;
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentWay;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * csv file of one payment way, written through one 64k buffer.
+ * <p>
+ * DIRECT -> direct deposit file : payment id,employee id,name,amount,date
+ * MAIL -> check print and mailing file : payment id,name,address,amount,date
+ * LEAVE_SALARY_TO_MANAGER -> paymaster pickup list : payment id,employee id,name,amount
+ */
+public class FilePaymentSink implements PaymentSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    final private PaymentWay paymentWay;
+    final private Writer writer;
+
+    public FilePaymentSink(Path file, PaymentWay paymentWay) throws IOException {
+        this.paymentWay = paymentWay;
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(headerOf(paymentWay));
+        writer.write('\n');
+    }
+
+    /**
+     * @return file name of the payment way on the date, e.g. direct-deposit-2020-01-31.csv
+     */
+    public static String fileNameOf(PaymentWay paymentWay, LocalDate paymentDate) {
+        switch (paymentWay) {
+            case DIRECT:
+                return "direct-deposit-" + paymentDate + ".csv";
+            case MAIL:
+                return "checks-" + paymentDate + ".csv";
+            default:
+                return "paymaster-" + paymentDate + ".csv";
+        }
+    }
+
+    @Override
+    public void write(Payment payment, Employee employee) throws IOException {
+        writer.write(payment.getId().toString());
+        writer.write(',');
+        if (!PaymentWay.MAIL.equals(paymentWay)) {
+            writer.write(employee.getId().toString());
+            writer.write(',');
+        }
+        writeText(employee.getName());
+        writer.write(',');
+        if (PaymentWay.MAIL.equals(paymentWay)) {
+            writeText(employee.getAddress());
+            writer.write(',');
+        }
+        writer.write(Money.toPlainString(payment.getSalaryAmountCents()));
+        if (!PaymentWay.LEAVE_SALARY_TO_MANAGER.equals(paymentWay)) {
+            writer.write(',');
+            writer.write(payment.getPaymentDate().toString());
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static String headerOf(PaymentWay paymentWay) {
+        switch (paymentWay) {
+            case DIRECT:
+                return "paymentId,employeeId,name,amount,date";
+            case MAIL:
+                return "paymentId,name,address,amount,date";
+            default:
+                return "paymentId,employeeId,name,amount";
+        }
+    }
+
+    /**
+     * quotes text with comma, quote or line break
+     */
+    private void writeText(String text) throws IOException {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,67 @@
+package com.ohdoking.payment.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * executors to run ingestion on.
+ * <p>
+ * on jdk 21 or later every submission gets its own virtual thread. the build targets java 8,
+ * so the virtual thread executor is looked up at runtime and older jdks fall back to a fixed pool.
+ */
+public final class IngestionExecutors {
+
+    private IngestionExecutors() {
+    }
+
+    /**
+     * @return virtual thread per task executor if the jdk has one, otherwise a fixed pool of 4 threads per processor
+     */
+    public static ExecutorService newExecutor() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        return newFixedExecutor(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public static boolean isVirtualThreadAvailable() {
+        return virtualThreadPerTaskExecutorMethod() != null;
+    }
+
+    public static ExecutorService newFixedExecutor(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount should be greater than 0");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threadCount, threadFactory);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method method = virtualThreadPerTaskExecutorMethod();
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method virtualThreadPerTaskExecutorMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
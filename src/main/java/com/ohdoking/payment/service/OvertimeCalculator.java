@@ -0,0 +1,74 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Money;
+
+/**
+ * overtime rule of a time card (one day of work).
+ * <p>
+ * first 8 hours -> hourly rate
+ * next 8 hours -> 1.5 times hourly rate
+ * over 16 hours -> 2.25 times hourly rate (1.5 times the block before)
+ * <p>
+ * pay is linear in the rate, so the rule is expressed as weighted hours and the rate is applied once.
+ * the closed forms hold for the hours of one day, from 0 to {@link #MAX_HOURS}, which time cards are checked against.
+ * the batch methods run one branch free loop over a primitive array, which the jit can unroll and vectorize.
+ */
+public final class OvertimeCalculator {
+
+    public static final double BLOCK_HOURS = 8;
+    public static final double OVERTIME_PREMIUM = 1.5;
+    public static final double SECOND_OVERTIME_PREMIUM = OVERTIME_PREMIUM * OVERTIME_PREMIUM;
+    public static final double MAX_HOURS = 24;
+
+    private OvertimeCalculator() {
+    }
+
+    /**
+     * @return whether the hours are between 0 and {@link #MAX_HOURS} (both inclusive), false for NaN
+     */
+    public static boolean isValidHours(double hours) {
+        return hours >= 0 && hours <= MAX_HOURS;
+    }
+
+    public static double getRegularHours(double hours) {
+        return Math.min(hours, BLOCK_HOURS);
+    }
+
+    /**
+     * overtime hours of a day weighted by their premium
+     */
+    public static double getWeightedOvertimeHours(double hours) {
+        double overtimeHours = Math.min(Math.max(hours - BLOCK_HOURS, 0), BLOCK_HOURS);
+        double secondOvertimeHours = Math.max(hours - 2 * BLOCK_HOURS, 0);
+        return OVERTIME_PREMIUM * overtimeHours + SECOND_OVERTIME_PREMIUM * secondOvertimeHours;
+    }
+
+    public static double getWeightedHours(double hours) {
+        return getRegularHours(hours) + getWeightedOvertimeHours(hours);
+    }
+
+    /**
+     * weighted hours of the days hours[from] to hours[to - 1]
+     */
+    public static double getWeightedHours(double[] hours, int from, int to) {
+        double weightedHours = 0;
+        for (int i = from; i < to; i++) {
+            double h = hours[i];
+            weightedHours += Math.min(h, BLOCK_HOURS)
+                    + OVERTIME_PREMIUM * Math.min(Math.max(h - BLOCK_HOURS, 0), BLOCK_HOURS)
+                    + SECOND_OVERTIME_PREMIUM * Math.max(h - 2 * BLOCK_HOURS, 0);
+        }
+        return weightedHours;
+    }
+
+    public static long getGrossPayCents(long hourlyRateCents, double hours) {
+        return Money.multiply(hourlyRateCents, getWeightedHours(hours));
+    }
+
+    /**
+     * gross pay of the days of one employee's period, rounded once to the cent
+     */
+    public static long getGrossPayCents(long hourlyRateCents, double[] hours, int from, int to) {
+        return Money.multiply(hourlyRateCents, getWeightedHours(hours, from, to));
+    }
+}
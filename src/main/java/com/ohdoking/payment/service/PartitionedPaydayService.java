@@ -0,0 +1,251 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.exception.PartitionException;
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaydaySummary;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import com.ohdoking.payment.repository.PaydayCheckpointRepository;
+import com.ohdoking.payment.repository.PaymentLedger;
+import com.ohdoking.payment.repository.PaymentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * payday split into partitions that independent worker processes run against a shared directory.
+ * <p>
+ * employees are split by {@link PaymentService#partitionOf}. every partition of a date has its own directory
+ * (&lt;date&gt;/partition-0000, ...) with its own payment ledger, checkpoints and summary file,
+ * so workers never write to the same file.
+ * a worker claims its partition with an exclusive lock on the claim file of the directory,
+ * which the operating system releases if the worker dies, and another worker can then resume the partition.
+ * workers load the repositories they read from the shared persistence directory with
+ * {@link com.ohdoking.payment.repository.RepositoryPersistence#openReadOnly()}, which writes nothing there,
+ * so they can't corrupt it or each other. the process that writes the repositories keeps them closed meanwhile.
+ * once every partition has its summary, {@link #merge} copies the partition ledgers into the main payment repository
+ * and drops the paid pay periods of the accumulator.
+ * <p>
+ * employees aren't indexed by partition, every worker streams the employees due on the date and skips those of
+ * other partitions, so a partition costs O(n) of all employees to find its n / partitionCount.
+ * partitions split the calculation and the writing of payments, not the reading of employees.
+ */
+public class PartitionedPaydayService {
+
+    private static final String CLAIM_FILE = "claim.lock";
+    private static final String SUMMARY_FILE = "summary.properties";
+    private static final int MERGE_BATCH_SIZE = 10000;
+
+    final private Path directory;
+    final private int partitionCount;
+
+    public PartitionedPaydayService(Path directory, int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount should be greater than 0");
+        }
+        this.directory = directory;
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * runs payday for one partition, resuming from its checkpoint if an earlier worker didn't finish it.
+     * a partition that is already finished isn't run again.
+     *
+     * @param paymentServiceFactory creates the payment service that writes into the given payment repository
+     * @return summary of the payments of the partition
+     * @throws PartitionException if another worker holds the partition
+     */
+    // the claim lock is only held until the partition is done, it isn't used in the try block
+    @SuppressWarnings("try")
+    public PaydaySummary runPartition(LocalDate date, int partition, Function<PaymentRepository, PaymentService> paymentServiceFactory) {
+        if (partition < 0 || partition >= partitionCount) {
+            throw new IllegalArgumentException("partition should be between 0 and partitionCount - 1");
+        }
+        Path partitionDirectory = partitionDirectoryOf(date, partition);
+        try {
+            Files.createDirectories(partitionDirectory);
+            try (FileChannel claim = FileChannel.open(partitionDirectory.resolve(CLAIM_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = claim(claim, date, partition, "is claimed by another worker")) {
+
+                Path summaryFile = partitionDirectory.resolve(SUMMARY_FILE);
+                if (Files.exists(summaryFile)) {
+                    return readSummary(summaryFile);
+                }
+
+                try (PaymentLedger paymentLedger = new PaymentLedger(partitionDirectory.resolve("ledger"))) {
+                    PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+                    PaymentService paymentService = paymentServiceFactory.apply(paymentRepository);
+                    paymentService.setPaydayCheckpointRepository(new PaydayCheckpointRepository(partitionDirectory.resolve("checkpoints")));
+                    paymentService.payday(date, partition, partitionCount);
+
+                    PaydaySummary summary = summarize(date, paymentRepository);
+                    writeSummary(summaryFile, summary);
+                    return summary;
+                }
+            }
+        } catch (IOException e) {
+            throw new PartitionException(String.format("can't run partition %d of %s", partition, date), e);
+        }
+    }
+
+    /**
+     * merges like {@link #merge(LocalDate, PaymentRepository)}, then drops the pay periods of the accumulator
+     * that the run has paid, as an unpartitioned payday does. a partition can't drop them itself,
+     * it doesn't know whether the others are done.
+     *
+     * @param payAccumulatorRepository the accumulator of the process that writes the repositories
+     * @return summary of the payments of every partition
+     * @throws PartitionException if a partition isn't finished or is still held by a worker
+     */
+    public PaydaySummary merge(LocalDate date, PaymentRepository paymentRepository, PayAccumulatorRepository payAccumulatorRepository) {
+        PaydaySummary summary = merge(date, paymentRepository);
+        payAccumulatorRepository.removePeriodsBefore(PayAccumulatorRepository.periodEndOf(date).minusWeeks(1));
+        return summary;
+    }
+
+    /**
+     * copies the payments of every partition of the date into the payment repository and writes the total summary.
+     * payments already in the repository are skipped, so merging again is harmless.
+     *
+     * @return summary of the payments of every partition
+     * @throws PartitionException if a partition isn't finished or is still held by a worker
+     */
+    // the claim lock is only held while the partition is copied, it isn't used in the try block
+    @SuppressWarnings("try")
+    public PaydaySummary merge(LocalDate date, PaymentRepository paymentRepository) {
+        long paymentCount = 0;
+        long amountCents = 0;
+        try {
+            for (int partition = 0; partition < partitionCount; partition++) {
+                Path partitionDirectory = partitionDirectoryOf(date, partition);
+                Path summaryFile = partitionDirectory.resolve(SUMMARY_FILE);
+                if (!Files.exists(summaryFile)) {
+                    throw new PartitionException(String.format("partition %d of %s isn't finished", partition, date));
+                }
+
+                try (FileChannel claim = FileChannel.open(partitionDirectory.resolve(CLAIM_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock lock = claim(claim, date, partition, "is still held by a worker");
+                     PaymentLedger paymentLedger = new PaymentLedger(partitionDirectory.resolve("ledger"))) {
+                    PaydaySummary summary = readSummary(summaryFile);
+                    long copiedCount = copy(paymentLedger, paymentRepository);
+                    if (copiedCount != summary.getPaymentCount()) {
+                        throw new PartitionException(String.format("ledger of partition %d of %s has %d payments but its summary has %d",
+                                partition, date, copiedCount, summary.getPaymentCount()));
+                    }
+                    paymentCount += summary.getPaymentCount();
+                    amountCents += summary.getAmountCents();
+                }
+            }
+
+            PaydaySummary summary = PaydaySummary.builder()
+                    .paymentDate(date)
+                    .partitionCount(partitionCount)
+                    .paymentCount(paymentCount)
+                    .amountCents(amountCents)
+                    .build();
+            writeSummary(dateDirectoryOf(date).resolve(SUMMARY_FILE), summary);
+            return summary;
+        } catch (IOException e) {
+            throw new PartitionException(String.format("can't merge partitions of %s", date), e);
+        }
+    }
+
+    private FileLock claim(FileChannel claim, LocalDate date, int partition, String heldMessage) throws IOException {
+        FileLock lock;
+        try {
+            lock = claim.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another thread of this process
+            lock = null;
+        }
+        if (lock == null) {
+            throw new PartitionException(String.format("partition %d of %s %s", partition, date, heldMessage));
+        }
+        return lock;
+    }
+
+    private static long copy(PaymentLedger paymentLedger, PaymentRepository paymentRepository) {
+        List<Payment> batch = new ArrayList<>(MERGE_BATCH_SIZE);
+        long[] count = new long[1];
+        paymentLedger.forEach(payment -> {
+            batch.add(payment);
+            count[0]++;
+            if (batch.size() == MERGE_BATCH_SIZE) {
+                paymentRepository.savePayments(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            paymentRepository.savePayments(batch);
+        }
+        return count[0];
+    }
+
+    private PaydaySummary summarize(LocalDate date, PaymentRepository paymentRepository) {
+        long[] totals = new long[2];
+        paymentRepository.forEachPayment(payment -> {
+            totals[0]++;
+            totals[1] += payment.getSalaryAmountCents();
+        });
+        return PaydaySummary.builder()
+                .paymentDate(date)
+                .partitionCount(partitionCount)
+                .paymentCount(totals[0])
+                .amountCents(totals[1])
+                .build();
+    }
+
+    /**
+     * writes a temporary file, forces it and renames it, so a summary file is either complete or missing
+     */
+    private static void writeSummary(Path file, PaydaySummary summary) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("paymentDate", summary.getPaymentDate().toString());
+        properties.setProperty("partitionCount", Integer.toString(summary.getPartitionCount()));
+        properties.setProperty("paymentCount", Long.toString(summary.getPaymentCount()));
+        properties.setProperty("amountCents", Long.toString(summary.getAmountCents()));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            properties.store(out, "payday summary");
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static PaydaySummary readSummary(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return PaydaySummary.builder()
+                .paymentDate(LocalDate.parse(properties.getProperty("paymentDate")))
+                .partitionCount(Integer.parseInt(properties.getProperty("partitionCount")))
+                .paymentCount(Long.parseLong(properties.getProperty("paymentCount")))
+                .amountCents(Long.parseLong(properties.getProperty("amountCents")))
+                .build();
+    }
+
+    private Path dateDirectoryOf(LocalDate date) {
+        return directory.resolve(date.toString());
+    }
+
+    private Path partitionDirectoryOf(LocalDate date, int partition) {
+        return dateDirectoryOf(date).resolve(String.format("partition-%04d", partition));
+    }
+}
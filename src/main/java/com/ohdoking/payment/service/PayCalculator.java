@@ -0,0 +1,45 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Money;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * salary of one pay period before service charges, the same for payday and for payroll simulation
+ */
+final class PayCalculator {
+
+    private PayCalculator() {
+    }
+
+    /**
+     * @param periodEnd end of the pay period, see {@link PayAccumulatorRepository#periodEndOf(LocalDate)}
+     * @return salary in cents
+     */
+    static long grossCents(Employee employee, LocalDate periodEnd, PayAccumulatorRepository payAccumulatorRepository) {
+        long salaryAmountCents = 0;
+
+        if (PaymentType.H.equals(employee.getPaymentType())) {
+            // this week's hours
+            double hours = payAccumulatorRepository.getRegularHours(employee.getId(), periodEnd)
+                    + payAccumulatorRepository.getOvertimeHours(employee.getId(), periodEnd);
+            salaryAmountCents = Money.multiply(employee.getHourlyRateCents(), hours);
+
+        } else if (PaymentType.S.equals(employee.getPaymentType())) {
+            salaryAmountCents = employee.getMonthlyPayCents();
+
+        } else if (PaymentType.C.equals(employee.getPaymentType())) {
+            salaryAmountCents = employee.getMonthlyPayCents();
+
+            // sales of this week and last week
+            long salesAmount = payAccumulatorRepository.getSalesAmount(employee.getId(), periodEnd)
+                    + payAccumulatorRepository.getSalesAmount(employee.getId(), periodEnd.minus(Period.ofWeeks(1)));
+            salaryAmountCents += Money.applyRate(Money.ofUnits(salesAmount), employee.getCommissionRatePpm());
+        }
+        return salaryAmountCents;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.PaymentType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * pay dates of every payment type.
+ * <p>
+ * hourly type -> every friday
+ * salary type -> last weekday of month
+ * commission type -> every other friday, counted from the commission anchor
+ * <p>
+ * the dates of a year are precomputed once into one byte per day holding a bit per payment type,
+ * so asking which payment types are due on a date is an array lookup.
+ */
+public class PayCalendar {
+
+    /**
+     * first friday of the epoch, commissioned employees are paid on it and every second friday after or before it
+     */
+    public static final LocalDate DEFAULT_COMMISSION_ANCHOR = LocalDate.of(1970, 1, 2);
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    final private long commissionAnchorEpochDay;
+    final private Map<Integer, byte[]> dueMasksByYear = new ConcurrentHashMap<>();
+    // payment types for every combination of bits
+    final private List<Set<PaymentType>> paymentTypesByMask = new ArrayList<>();
+
+    public PayCalendar() {
+        this(DEFAULT_COMMISSION_ANCHOR);
+    }
+
+    public PayCalendar(LocalDate commissionAnchor) {
+        if (!DayOfWeek.FRIDAY.equals(commissionAnchor.getDayOfWeek())) {
+            throw new IllegalArgumentException("commissionAnchor should be friday");
+        }
+        this.commissionAnchorEpochDay = commissionAnchor.toEpochDay();
+
+        for (int mask = 0; mask < 1 << PAYMENT_TYPES.length; mask++) {
+            Set<PaymentType> paymentTypes = EnumSet.noneOf(PaymentType.class);
+            for (PaymentType paymentType : PAYMENT_TYPES) {
+                if ((mask & bitOf(paymentType)) != 0) {
+                    paymentTypes.add(paymentType);
+                }
+            }
+            paymentTypesByMask.add(Collections.unmodifiableSet(paymentTypes));
+        }
+    }
+
+    public Set<PaymentType> getPaymentTypesDueOn(LocalDate date) {
+        return paymentTypesByMask.get(maskOf(date));
+    }
+
+    public boolean isPaymentDate(PaymentType paymentType, LocalDate date) {
+        return (maskOf(date) & bitOf(paymentType)) != 0;
+    }
+
+    /**
+     * @return true if the date is the first pay date of the payment type in its month
+     */
+    public boolean isFirstPaymentDateOfMonth(PaymentType paymentType, LocalDate date) {
+        if (!isPaymentDate(paymentType, date)) {
+            return false;
+        }
+        for (LocalDate day = date.withDayOfMonth(1); day.isBefore(date); day = day.plusDays(1)) {
+            if (isPaymentDate(paymentType, day)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int maskOf(LocalDate date) {
+        byte[] dueMasks = dueMasksByYear.computeIfAbsent(date.getYear(), this::precompute);
+        return dueMasks[date.getDayOfYear() - 1];
+    }
+
+    private byte[] precompute(int year) {
+        LocalDate firstDay = LocalDate.of(year, 1, 1);
+        byte[] dueMasks = new byte[firstDay.lengthOfYear()];
+
+        LocalDate friday = firstDay.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+        for (; friday.getYear() == year; friday = friday.plusWeeks(1)) {
+            int mask = bitOf(PaymentType.H);
+            if (Math.floorMod(friday.toEpochDay() - commissionAnchorEpochDay, 14) == 0) {
+                mask |= bitOf(PaymentType.C);
+            }
+            dueMasks[friday.getDayOfYear() - 1] |= mask;
+        }
+
+        for (int month = 1; month <= 12; month++) {
+            LocalDate lastWeekday = YearMonth.of(year, month).atEndOfMonth();
+            while (lastWeekday.getDayOfWeek() == DayOfWeek.SATURDAY || lastWeekday.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                lastWeekday = lastWeekday.minusDays(1);
+            }
+            dueMasks[lastWeekday.getDayOfYear() - 1] |= bitOf(PaymentType.S);
+        }
+        return dueMasks;
+    }
+
+    private static int bitOf(PaymentType paymentType) {
+        return 1 << paymentType.ordinal();
+    }
+}
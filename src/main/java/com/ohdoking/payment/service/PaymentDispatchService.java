@@ -0,0 +1,115 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.exception.DispatchException;
+import com.ohdoking.payment.model.DispatchReport;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentWay;
+import com.ohdoking.payment.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * sends the payments of a payment date to the output of their payment way.
+ * <p>
+ * only the payments of the date are read, from the date index of the repository, and every payment is routed to the sink of its way,
+ * so each output is written sequentially in one go instead of one action per payment.
+ */
+@RequiredArgsConstructor
+public class PaymentDispatchService {
+
+    final private PaymentRepository paymentRepository;
+    final private EmployeeService employeeService;
+
+    /**
+     * writes the payments of the date into a direct deposit file, a check mailing file and a paymaster pickup list
+     * in the directory, see {@link FilePaymentSink}
+     */
+    public DispatchReport dispatchToDirectory(LocalDate paymentDate, Path directory) {
+        Map<PaymentWay, PaymentSink> sinkMap = new EnumMap<>(PaymentWay.class);
+        RuntimeException failure = null;
+        try {
+            for (PaymentWay paymentWay : PaymentWay.values()) {
+                sinkMap.put(paymentWay, new FilePaymentSink(directory.resolve(FilePaymentSink.fileNameOf(paymentWay, paymentDate)), paymentWay));
+            }
+            return dispatch(paymentDate, sinkMap);
+        } catch (IOException e) {
+            failure = new DispatchException(String.format("can't dispatch payments of %s", paymentDate), e);
+            throw failure;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            closeAll(sinkMap, failure);
+        }
+    }
+
+    /**
+     * writes the payments of the date into the sink of their payment way. the sinks are not closed.
+     */
+    public DispatchReport dispatch(LocalDate paymentDate, Map<PaymentWay, PaymentSink> sinkMap) {
+        Map<PaymentWay, Long> paymentCountByWay = new EnumMap<>(PaymentWay.class);
+        Map<PaymentWay, Long> amountCentsByWay = new EnumMap<>(PaymentWay.class);
+        long[] skippedCount = new long[1];
+
+        try {
+            paymentRepository.forEachPaymentOn(paymentDate, payment -> {
+                Employee employee = employeeService.getEmployee(payment.getEmployeeId());
+                PaymentSink sink = sinkMap.get(payment.getPaymentWay());
+                if (employee == null || sink == null) {
+                    skippedCount[0]++;
+                    return;
+                }
+                write(sink, payment, employee);
+                paymentCountByWay.merge(payment.getPaymentWay(), 1L, Long::sum);
+                amountCentsByWay.merge(payment.getPaymentWay(), payment.getSalaryAmountCents(), Long::sum);
+            });
+        } catch (UncheckedIOException e) {
+            throw new DispatchException(String.format("can't dispatch payments of %s", paymentDate), e.getCause());
+        }
+
+        return DispatchReport.builder()
+                .paymentCountByWay(paymentCountByWay)
+                .amountCentsByWay(amountCentsByWay)
+                .skippedCount(skippedCount[0])
+                .build();
+    }
+
+    private void write(PaymentSink sink, Payment payment, Employee employee) {
+        try {
+            sink.write(payment, employee);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * closes every sink. failures to close are added to the failure of the dispatch if there is one,
+     * so they don't hide it, otherwise they are thrown.
+     */
+    private void closeAll(Map<PaymentWay, PaymentSink> sinkMap, RuntimeException failure) {
+        DispatchException closeFailure = null;
+        for (PaymentSink sink : sinkMap.values()) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else if (closeFailure == null) {
+                    closeFailure = new DispatchException("can't close payment output", e);
+                } else {
+                    closeFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (closeFailure != null) {
+            throw closeFailure;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentTotals;
+import com.ohdoking.payment.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * questions of payroll staff about paid salaries, answered from the indexes of PaymentRepository without a scan
+ */
+@RequiredArgsConstructor
+public class PaymentHistoryService {
+
+    final private PaymentRepository paymentRepository;
+
+    /**
+     * @return payments of the employee between from and to (both inclusive) in order of date
+     */
+    public List<Payment> getPaymentHistory(UUID employeeId, LocalDate from, LocalDate to) {
+        return paymentRepository.getPaymentsByEmployeeId(employeeId, from, to);
+    }
+
+    /**
+     * @return gross of the employee, before service charges are deducted, from the first day of the year of the date
+     * to the date (inclusive), in cents
+     */
+    public long getYearToDateGrossCents(UUID employeeId, LocalDate date) {
+        return paymentRepository.getYearToDateGrossCents(employeeId, date);
+    }
+
+    /**
+     * @return gross of the employee, before service charges are deducted, from the first day of the quarter of the date
+     * to the date (inclusive), in cents
+     */
+    public long getQuarterToDateGrossCents(UUID employeeId, LocalDate date) {
+        return paymentRepository.getQuarterToDateGrossCents(employeeId, date);
+    }
+
+    /**
+     * @return totals paid, after service charges are deducted, between from and to (both inclusive) by payment type and by payment way
+     */
+    public PaymentTotals getTotals(LocalDate from, LocalDate to) {
+        return paymentRepository.getTotals(from, to);
+    }
+}
@@ -1,13 +1,20 @@
 package com.ohdoking.payment.service;
 
+import com.ohdoking.payment.metrics.Counter;
+import com.ohdoking.payment.metrics.MetricsRegistry;
+import com.ohdoking.payment.metrics.Timer;
 import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import com.ohdoking.payment.repository.PaydayCheckpointRepository;
 import com.ohdoking.payment.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.Period;
-import java.util.List;
-import java.util.UUID;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 @RequiredArgsConstructor
 public class PaymentService {
@@ -18,6 +25,20 @@ public class PaymentService {
     final private ServiceChargeService serviceChargeService;
     final private TimeCardService timeCardService;
     final private SalesReceiptService salesReceiptService;
+    final private PayAccumulatorRepository payAccumulatorRepository;
+    final private PayCalendar payCalendar;
+
+    /**
+     * 1 worker thread keeps the sequential path, records of 1000 employees are prefetched together
+     */
+    final private EmployeeBatchRunner batchRunner = new EmployeeBatchRunner(1, 1000);
+
+    private PaydayMetrics metrics = new PaydayMetrics(MetricsRegistry.NOOP);
+
+    /**
+     * progress of payday is saved here after every batch, null to not checkpoint
+     */
+    private PaydayCheckpointRepository paydayCheckpointRepository;
 
     /**
      * 1. get list of employee
@@ -39,69 +60,277 @@ public class PaymentService {
      * 5. write this in payment table.
      * 6. pay salary with what employee want.
      * 6-1. get payment way from Employee
+     * <p>
+     * a run is identified by its date ({@link #runIdOf(LocalDate)}) and the id of a payment by the run and the employee
+     * ({@link #paymentIdOf(UUID, UUID)}), so running payday again for the same date pays nobody twice.
+     * with a checkpoint repository the run also saves how far it got after every batch
+     * and a rerun after a crash starts after the last paid employee instead of from the beginning.
      *
      * @param date
      */
 
     public void payday(LocalDate date) {
-        //1. get list of employee
-        List<Employee> employeeList = employeeService.getListOfEmployee();
+        payday(date, 0, 1);
+    }
+
+    /**
+     * pays only the employees of one partition, see {@link #partitionOf(UUID, int)}.
+     * the payment ids are the same as those of an unpartitioned run, so partitions can be merged without duplicates.
+     * every employee due on the date is still streamed and those of other partitions are skipped.
+     *
+     * @param partition      from 0 to partitionCount - 1
+     * @param partitionCount 1 pays everyone
+     */
+    public void payday(LocalDate date, int partition, int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount should be greater than 0");
+        }
+        if (partition < 0 || partition >= partitionCount) {
+            throw new IllegalArgumentException("partition should be between 0 and partitionCount - 1");
+        }
+
+        PaydayMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        UUID runId = runIdOf(date);
+        PaydayProgress progress = new PaydayProgress(runId, date,
+                paydayCheckpointRepository == null ? null : paydayCheckpointRepository.findByRunId(runId));
+        ForkJoinPool pool = batchRunner.newPool();
 
-        employeeList.forEach((employee) -> {
-            if (isPaymentDate(employee.getPaymentType(), date)) {
+        try {
+            //1. get list of employee, only the payment types due today and only one batch of them at a time
+            //2. check whether payment date or not
+            for (PaymentType paymentType : payCalendar.getPaymentTypesDueOn(date)) {
+                if (progress.completedPaymentTypes.contains(paymentType)) {
+                    continue;
+                }
+                UUID lastEmployeeId = progress.lastEmployeeIdByPaymentType.get(paymentType);
+                long[] fetchStart = {System.nanoTime()};
+                // employees come in ascending order of id, so the last paid one is where a resumed run continues.
+                // a batch doesn't span payment types, so the checkpoint can tell where each of them is
+                batchRunner.forEachBatch(lastEmployeeId == null
+                                ? employeeService.streamEmployeesByPaymentType(paymentType)
+                                : employeeService.streamEmployeesByPaymentType(paymentType, lastEmployeeId),
+                        employee -> partitionCount == 1 || partitionOf(employee.getId(), partitionCount) == partition,
+                        employeeList -> {
+                            metrics.fetchEmployees.record(System.nanoTime() - fetchStart[0]);
+                            paydayBatch(employeeList, paymentType, progress, pool, metrics);
+                            // a smaller batch is the last one, the payment type is completed right after it
+                            if (batchRunner.isFullBatch(employeeList)) {
+                                progress.lastEmployeeIdByPaymentType.put(paymentType, employeeList.get(employeeList.size() - 1).getId());
+                                saveCheckpoint(progress);
+                            }
+                            fetchStart[0] = System.nanoTime();
+                        });
+                progress.lastEmployeeIdByPaymentType.remove(paymentType);
+                progress.completedPaymentTypes.add(paymentType);
+                saveCheckpoint(progress);
+            }
+            // hourly pay uses the period of the date and commission also the one before, older periods are paid.
+            // a partition doesn't know whether the others are done, so only a whole run drops them,
+            // partitioned runs drop them when they're merged, see PartitionedPaydayService#merge
+            if (partitionCount == 1) {
+                payAccumulatorRepository.removePeriodsBefore(PayAccumulatorRepository.periodEndOf(date).minusWeeks(1));
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            metrics.payday.record(System.nanoTime() - start);
+        }
+    }
 
-                double salaryAmount = 0.0;
+    /**
+     * @return id of the payday run of the date, the same for every run of the date
+     */
+    public static UUID runIdOf(LocalDate date) {
+        return UUID.nameUUIDFromBytes(("payday:" + date).getBytes(StandardCharsets.UTF_8));
+    }
 
-                if (PaymentType.H.equals(employee.getPaymentType())) {
-                    List<TimeCard> timeCardList = timeCardService.getListOfTimeCardById(employee.getId(), date.minus(Period.ofWeeks(1)));
+    /**
+     * @return id of the payment of the employee in the run, the same whenever the run is repeated
+     */
+    public static UUID paymentIdOf(UUID runId, UUID employeeId) {
+        return UUID.nameUUIDFromBytes(ByteBuffer.allocate(32)
+                .putLong(runId.getMostSignificantBits())
+                .putLong(runId.getLeastSignificantBits())
+                .putLong(employeeId.getMostSignificantBits())
+                .putLong(employeeId.getLeastSignificantBits())
+                .array());
+    }
 
-                    for (TimeCard timeCard : timeCardList) {
-                        salaryAmount += getSalaryAmount(employee.getHourlyRate(), timeCard.getHours());
-                    }
-                } else if (PaymentType.S.equals(employee.getPaymentType())) {
-                    salaryAmount = employee.getMonthlyPay();
+    /**
+     * @return partition of the employee, the same in every process since it only depends on the id
+     */
+    public static int partitionOf(UUID employeeId, int partitionCount) {
+        return Math.floorMod(employeeId.hashCode(), partitionCount);
+    }
 
-                } else if (PaymentType.C.equals(employee.getPaymentType())) {
-                    salaryAmount = employee.getMonthlyPay();
+    public void setPaydayCheckpointRepository(PaydayCheckpointRepository paydayCheckpointRepository) {
+        this.paydayCheckpointRepository = paydayCheckpointRepository;
+    }
 
-                    List<SaleReceipt> saleReceiptList = salesReceiptService.getListOfSalesReceiptById(employee.getId(), date.minus(Period.ofWeeks(2)));
-                    for (SaleReceipt saleReceipt : saleReceiptList) {
-                        salaryAmount += saleReceipt.getAmount() * employee.getCommissionRate();
-                    }
-                }
+    /**
+     * number of worker threads used by payday. 1 keeps the sequential path.
+     */
+    public void setParallelism(int parallelism) {
+        batchRunner.setParallelism(parallelism);
+    }
 
-                ServiceCharge serviceCharge = serviceChargeService.findServiceChargeById(employee.getId());
-                if (serviceCharge != null) {
-                    salaryAmount -= serviceCharge.getAmount();
-                }
+    /**
+     * max number of employees calculated by one fork join task
+     */
+    public void setShardSize(int shardSize) {
+        batchRunner.setShardSize(shardSize);
+    }
 
-                paymentRepository.savePaymentt(Payment.builder()
-                        .id(UUID.randomUUID())
-                        .employeeId(employee.getId())
-                        .salaryAmount(salaryAmount)
-                        .paymentDate(date)
-                        .paymentWay(employee.getPaymentWay())
-                        .build()
-                );
-            }
-        });
+    /**
+     * number of employees whose records are prefetched together
+     */
+    public void setBatchSize(int batchSize) {
+        batchRunner.setBatchSize(batchSize);
+    }
+
+    /**
+     * metrics of payday, see {@link PaydayMetrics} for their names. the default registry records nothing.
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metrics = new PaydayMetrics(metricsRegistry);
+    }
+
+    private void saveCheckpoint(PaydayProgress progress) {
+        if (paydayCheckpointRepository != null) {
+            paydayCheckpointRepository.save(progress.toCheckpoint());
+        }
+    }
+
+    private void paydayBatch(List<Employee> employeeList, PaymentType paymentType, PaydayProgress progress, ForkJoinPool pool, PaydayMetrics metrics) {
+        long start = System.nanoTime();
+        PaydayBatch batch = prefetch(new ArrayList<>(employeeList), paymentType, progress.runId, progress.date);
+        long prefetched = System.nanoTime();
+        metrics.prefetchServiceCharges.record(prefetched - start);
+        metrics.serviceChargesRead.add(batch.deductionCentsMap.size());
+
+        List<Payment> paymentList = batchRunner.calculate(pool, batch.employeeList.size(),
+                (from, to) -> calculatePayments(batch, from, to),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                });
+        long calculated = System.nanoTime();
+        metrics.calculate.record(calculated - prefetched);
+        metrics.employeesProcessed.add(batch.employeeList.size());
+
+        // 5. write this in payment table.
+        paymentRepository.savePayments(paymentList);
+        metrics.savePayments.record(System.nanoTime() - calculated);
+        metrics.paymentsWritten.add(paymentList.size());
+    }
+
+    /**
+     * reads the service charge deductions of the whole batch with one call, only on the first pay date of the month.
+     * hours and sales come from the pay accumulator which is kept up to date when they are added.
+     */
+    private PaydayBatch prefetch(List<Employee> employeeList, PaymentType paymentType, UUID runId, LocalDate date) {
+        Set<UUID> employeeIds = new HashSet<>();
+        for (Employee employee : employeeList) {
+            employeeIds.add(employee.getId());
+        }
+
+        // 4. service charges of last month are deducted from the first pay of this month, as one total per employee
+        Map<UUID, Long> deductionCentsMap = Collections.emptyMap();
+        if (payCalendar.isFirstPaymentDateOfMonth(paymentType, date)) {
+            deductionCentsMap = serviceChargeService.getDeductionCentsByIds(employeeIds, YearMonth.from(date).minusMonths(1));
+        }
 
+        return new PaydayBatch(employeeList, runId, date, PayAccumulatorRepository.periodEndOf(date), deductionCentsMap);
     }
 
-    private double getSalaryAmount(Double employeeHourlyRate, double hours) {
-        if (hours > 8) {
-            return 8 * employeeHourlyRate + getSalaryAmount(employeeHourlyRate * 1.5, hours - 8);
+    private List<Payment> calculatePayments(PaydayBatch batch, int from, int to) {
+        List<Payment> paymentList = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            paymentList.add(calculatePayment(batch.employeeList.get(i), batch));
         }
-        return hours * employeeHourlyRate;
+        return paymentList;
     }
 
-    // TODO implement proper code
-    private boolean isPaymentDate(PaymentType paymentType, LocalDate date) {
-        if (PaymentType.H.equals(paymentType)) {
-            return true;
-        } else if (PaymentType.S.equals(paymentType)) {
-            return true;
-        } else return PaymentType.C.equals(paymentType);
+    private Payment calculatePayment(Employee employee, PaydayBatch batch) {
+        long grossCents = PayCalculator.grossCents(employee, batch.periodEnd, payAccumulatorRepository);
+        long deductionCents = batch.deductionCentsMap.getOrDefault(employee.getId(), 0L);
+
+        return Payment.builder()
+                .id(paymentIdOf(batch.runId, employee.getId()))
+                .employeeId(employee.getId())
+                .salaryAmountCents(grossCents - deductionCents)
+                .deductionCents(deductionCents)
+                .paymentDate(batch.date)
+                .paymentType(employee.getPaymentType())
+                .paymentWay(employee.getPaymentWay())
+                .build();
+    }
+
+    /**
+     * metrics of payday looked up once per registry, timers are per stage and per batch except payday
+     */
+    private static class PaydayMetrics {
+        final private Timer payday;
+        final private Timer fetchEmployees;
+        final private Timer prefetchServiceCharges;
+        final private Timer calculate;
+        final private Timer savePayments;
+        final private Counter employeesProcessed;
+        final private Counter paymentsWritten;
+        final private Counter serviceChargesRead;
+
+        PaydayMetrics(MetricsRegistry metricsRegistry) {
+            payday = metricsRegistry.timer("payday");
+            fetchEmployees = metricsRegistry.timer("payday.fetchEmployees");
+            prefetchServiceCharges = metricsRegistry.timer("payday.prefetchServiceCharges");
+            calculate = metricsRegistry.timer("payday.calculate");
+            savePayments = metricsRegistry.timer("payday.savePayments");
+            employeesProcessed = metricsRegistry.counter("payday.employeesProcessed");
+            paymentsWritten = metricsRegistry.counter("payday.paymentsWritten");
+            serviceChargesRead = metricsRegistry.counter("payday.serviceChargesRead");
+        }
+    }
+
+    /**
+     * what a payday run has paid so far, starting from its saved checkpoint if there is one
+     */
+    private static class PaydayProgress {
+        final private UUID runId;
+        final private LocalDate date;
+        final private EnumSet<PaymentType> completedPaymentTypes = EnumSet.noneOf(PaymentType.class);
+        final private EnumMap<PaymentType, UUID> lastEmployeeIdByPaymentType = new EnumMap<>(PaymentType.class);
+
+        PaydayProgress(UUID runId, LocalDate date, PaydayCheckpoint checkpoint) {
+            this.runId = runId;
+            this.date = date;
+            if (checkpoint != null) {
+                completedPaymentTypes.addAll(checkpoint.getCompletedPaymentTypes());
+                lastEmployeeIdByPaymentType.putAll(checkpoint.getLastEmployeeIdByPaymentType());
+            }
+        }
+
+        PaydayCheckpoint toCheckpoint() {
+            return PaydayCheckpoint.builder()
+                    .runId(runId)
+                    .paymentDate(date)
+                    .completedPaymentTypes(EnumSet.copyOf(completedPaymentTypes))
+                    .lastEmployeeIdByPaymentType(new EnumMap<>(lastEmployeeIdByPaymentType))
+                    .build();
+        }
+    }
+
+    /**
+     * employees of one batch with the records prefetched for them
+     */
+    @RequiredArgsConstructor
+    private static class PaydayBatch {
+        final private List<Employee> employeeList;
+        final private UUID runId;
+        final private LocalDate date;
+        final private LocalDate periodEnd;
+        final private Map<UUID, Long> deductionCentsMap;
     }
 
 }
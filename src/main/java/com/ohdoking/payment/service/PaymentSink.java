@@ -0,0 +1,16 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.Payment;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * output of dispatched payments of one payment way, e.g. a direct deposit file.
+ * payments are written one after another and the output is complete once it's closed.
+ */
+public interface PaymentSink extends Closeable {
+
+    void write(Payment payment, Employee employee) throws IOException;
+}
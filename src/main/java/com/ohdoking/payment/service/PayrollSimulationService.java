@@ -0,0 +1,171 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * preview of a payday run without paying anybody.
+ * <p>
+ * employees due on the date of the scenario are calculated like payday does, with the rates of the scenario,
+ * and every salary is only added to running totals by payment type and payment way, no Payment is built or kept.
+ * nothing is written, so a simulation can run any time and as often as wanted.
+ * payday drops the pay periods it has paid except the last one, so a date already paid can be simulated
+ * only while its periods are kept, i.e. up to the last payday. earlier dates are rejected instead of simulated with 0 hours and sales.
+ * <p>
+ * employees are read one batch at a time and a batch is split into shards calculated in parallel,
+ * the totals of the shards are added together, the same way as payday, see {@link EmployeeBatchRunner}.
+ */
+@RequiredArgsConstructor
+public class PayrollSimulationService {
+
+    final private EmployeeService employeeService;
+    final private ServiceChargeService serviceChargeService;
+    final private PayAccumulatorRepository payAccumulatorRepository;
+    final private PayCalendar payCalendar;
+
+    /**
+     * one worker thread per processor, service charges of 10000 employees are read together
+     */
+    final private EmployeeBatchRunner batchRunner = new EmployeeBatchRunner(Runtime.getRuntime().availableProcessors(), 10000);
+
+    /**
+     * @return totals payday would pay on the date of the scenario
+     * @throws IllegalArgumentException if a pay period of the date was already paid and dropped
+     */
+    public PaymentTotals simulate(PayrollScenario scenario) {
+        LocalDate date = scenario.getPaymentDate();
+        Set<PaymentType> paymentTypes = payCalendar.getPaymentTypesDueOn(date);
+        checkPeriodsKept(paymentTypes, date);
+        Map<UUID, RateOverride> rateOverrideMap = new HashMap<>();
+        for (RateOverride rateOverride : scenario.getRateOverrides()) {
+            for (UUID employeeId : rateOverride.getEmployeeIds()) {
+                rateOverrideMap.put(employeeId, rateOverride);
+            }
+        }
+
+        PaymentTotalsAccumulator totals = new PaymentTotalsAccumulator();
+        ForkJoinPool pool = batchRunner.newPool();
+        try {
+            for (PaymentType paymentType : paymentTypes) {
+                batchRunner.forEachBatch(employeeService.streamEmployeesByPaymentType(paymentType), employee -> true,
+                        employeeList -> totals.add(simulateBatch(employeeList, paymentType, date, rateOverrideMap, pool)));
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return totals.toPaymentTotals();
+    }
+
+    /**
+     * number of worker threads used by a simulation. 1 calculates in the caller's thread.
+     */
+    public void setParallelism(int parallelism) {
+        batchRunner.setParallelism(parallelism);
+    }
+
+    /**
+     * max number of employees calculated by one fork join task
+     */
+    public void setShardSize(int shardSize) {
+        batchRunner.setShardSize(shardSize);
+    }
+
+    /**
+     * number of employees whose service charges are read together
+     */
+    public void setBatchSize(int batchSize) {
+        batchRunner.setBatchSize(batchSize);
+    }
+
+    /**
+     * hourly pay reads the period of the date and commission also the one before, see {@link PayCalculator}
+     */
+    private void checkPeriodsKept(Set<PaymentType> paymentTypes, LocalDate date) {
+        LocalDate periodEnd = PayAccumulatorRepository.periodEndOf(date);
+        LocalDate firstPeriodEnd = null;
+        if (paymentTypes.contains(PaymentType.C)) {
+            firstPeriodEnd = periodEnd.minusWeeks(1);
+        } else if (paymentTypes.contains(PaymentType.H)) {
+            firstPeriodEnd = periodEnd;
+        }
+        if (firstPeriodEnd != null && payAccumulatorRepository.isPeriodRemoved(firstPeriodEnd)) {
+            throw new IllegalArgumentException(String.format("pay periods of %s are already paid and dropped, it can't be simulated", date));
+        }
+    }
+
+    private PaymentTotalsAccumulator simulateBatch(List<Employee> employeeList, PaymentType paymentType, LocalDate date,
+                                           Map<UUID, RateOverride> rateOverrideMap, ForkJoinPool pool) {
+        // service charges of last month are deducted on the first pay date of this month, the same as payday
+        Map<UUID, Long> deductionCentsMap = Collections.emptyMap();
+        if (payCalendar.isFirstPaymentDateOfMonth(paymentType, date)) {
+            Set<UUID> employeeIds = new HashSet<>();
+            for (Employee employee : employeeList) {
+                employeeIds.add(employee.getId());
+            }
+            deductionCentsMap = serviceChargeService.getDeductionCentsByIds(employeeIds, YearMonth.from(date).minusMonths(1));
+        }
+
+        SimulationBatch batch = new SimulationBatch(new ArrayList<>(employeeList),
+                PayAccumulatorRepository.periodEndOf(date), deductionCentsMap, rateOverrideMap);
+        return batchRunner.calculate(pool, batch.employeeList.size(),
+                (from, to) -> simulateShard(batch, from, to),
+                (left, right) -> {
+                    left.add(right);
+                    return left;
+                });
+    }
+
+    /**
+     * running totals of one shard, shards are added together once they are done
+     */
+    private PaymentTotalsAccumulator simulateShard(SimulationBatch batch, int from, int to) {
+        PaymentTotalsAccumulator totals = new PaymentTotalsAccumulator();
+        for (int i = from; i < to; i++) {
+            Employee employee = batch.employeeList.get(i);
+            RateOverride rateOverride = batch.rateOverrideMap.get(employee.getId());
+            if (rateOverride != null) {
+                employee = withRates(employee, rateOverride);
+            }
+
+            long salaryAmountCents = PayCalculator.grossCents(employee, batch.periodEnd, payAccumulatorRepository);
+            Long deductionCents = batch.deductionCentsMap.get(employee.getId());
+            if (deductionCents != null) {
+                salaryAmountCents -= deductionCents;
+            }
+            totals.addPayment(employee.getPaymentType(), employee.getPaymentWay(), salaryAmountCents);
+        }
+        return totals;
+    }
+
+    private static Employee withRates(Employee employee, RateOverride rateOverride) {
+        return Employee.builder()
+                .id(employee.getId())
+                .name(employee.getName())
+                .address(employee.getAddress())
+                .paymentType(employee.getPaymentType())
+                .hourlyRateCents(rateOverride.getHourlyRateCents() != null ? rateOverride.getHourlyRateCents() : employee.getHourlyRateCents())
+                .monthlyPayCents(rateOverride.getMonthlyPayCents() != null ? rateOverride.getMonthlyPayCents() : employee.getMonthlyPayCents())
+                .commissionRatePpm(rateOverride.getCommissionRatePpm() != null ? rateOverride.getCommissionRatePpm() : employee.getCommissionRatePpm())
+                .paymentWay(employee.getPaymentWay())
+                .build();
+    }
+
+    /**
+     * employees of one batch with what is read for them before they are calculated
+     */
+    @RequiredArgsConstructor
+    private static class SimulationBatch {
+        final private List<Employee> employeeList;
+        final private LocalDate periodEnd;
+        final private Map<UUID, Long> deductionCentsMap;
+        final private Map<UUID, RateOverride> rateOverrideMap;
+    }
+}
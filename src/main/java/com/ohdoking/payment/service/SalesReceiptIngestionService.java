@@ -0,0 +1,177 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.SaleReceipt;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * asynchronous ingestion of sales receipts.
+ * <p>
+ * a receipt is validated in the caller's thread (memory only) and put into a bounded queue.
+ * one background writer takes what is queued, up to maxBatchSize receipts, and writes it with one repository call.
+ * the returned future completes once the receipt is written, so callers never wait for storage.
+ * if the queue is full the receipt is rejected right away instead of blocking the caller.
+ * <p>
+ * submitting holds the read side of a lock while it checks closed and queues the receipt and close() sets closed
+ * holding the write side, so no receipt is queued after close() started and every queued receipt gets written.
+ * <p>
+ * whatever a write throws, errors included, fails the futures of its batch and the writer goes on with the next batch,
+ * so a failed write never leaves futures pending or stops later receipts from being written.
+ */
+public class SalesReceiptIngestionService implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 65536;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private static final long POLL_MILLIS = 100;
+
+    final private SalesReceiptService salesReceiptService;
+    final private int maxBatchSize;
+    final private BlockingQueue<PendingSaleReceipt> queue;
+    final private Thread writer;
+    final private ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+
+    private volatile boolean closed;
+
+    public SalesReceiptIngestionService(SalesReceiptService salesReceiptService) {
+        this(salesReceiptService, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public SalesReceiptIngestionService(SalesReceiptService salesReceiptService, int capacity, int maxBatchSize) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should be greater than 0");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize should be greater than 0");
+        }
+        this.salesReceiptService = salesReceiptService;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "sales-receipt-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return future of the written sales receipt. it fails with the validation exception of
+     * {@link SalesReceiptService#addSalesReceipt}, with RejectedExecutionException if the queue is full or closed,
+     * or with the exception of the repository write.
+     */
+    public CompletableFuture<SaleReceipt> submitSalesReceipt(UUID employeeId, LocalDate localDate, Integer amount) {
+        CompletableFuture<SaleReceipt> future = new CompletableFuture<>();
+        intakeLock.readLock().lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("sales receipt ingestion is closed"));
+                return future;
+            }
+
+            SaleReceipt saleReceipt;
+            try {
+                saleReceipt = salesReceiptService.newSalesReceipt(employeeId, localDate, amount);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+
+            if (!queue.offer(new PendingSaleReceipt(saleReceipt, future))) {
+                future.completeExceptionally(new RejectedExecutionException("sales receipt queue is full"));
+            }
+        } finally {
+            intakeLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    /**
+     * @return number of receipts waiting to be written
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * stops accepting receipts and writes everything that is queued
+     */
+    @Override
+    public void close() {
+        intakeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            intakeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // receipts queued between the last poll of the writer and closed
+        List<PendingSaleReceipt> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            write(batch);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<PendingSaleReceipt> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            PendingSaleReceipt first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // close() writes what is left
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            write(batch);
+        }
+    }
+
+    private void write(List<PendingSaleReceipt> batch) {
+        List<SaleReceipt> saleReceiptList = new ArrayList<>(batch.size());
+        for (PendingSaleReceipt pending : batch) {
+            saleReceiptList.add(pending.saleReceipt);
+        }
+        try {
+            salesReceiptService.addSalesReceipts(saleReceiptList);
+            for (PendingSaleReceipt pending : batch) {
+                pending.future.complete(pending.saleReceipt);
+            }
+        } catch (Throwable e) {
+            for (PendingSaleReceipt pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingSaleReceipt {
+        final private SaleReceipt saleReceipt;
+        final private CompletableFuture<SaleReceipt> future;
+    }
+}
@@ -2,39 +2,102 @@ package com.ohdoking.payment.service;
 
 import com.ohdoking.payment.exception.IncorrectPaymentTypeEmployeeException;
 import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.metrics.Counter;
+import com.ohdoking.payment.metrics.MetricsRegistry;
+import com.ohdoking.payment.metrics.Timer;
 import com.ohdoking.payment.model.Employee;
 import com.ohdoking.payment.model.PaymentType;
 import com.ohdoking.payment.model.SaleReceipt;
-import com.ohdoking.payment.repository.EmployeeRepository;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
 import com.ohdoking.payment.repository.SalesReceiptRepository;
-import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
-@RequiredArgsConstructor
 public class SalesReceiptService {
 
-    final private EmployeeRepository employeeRepository;
+    final private EmployeeCache employeeCache;
     final private SalesReceiptRepository salesReceiptRepository;
+    final private PayAccumulatorRepository payAccumulatorRepository;
+
+    private Timer addTimer = Timer.NOOP;
+    private Timer addBatchTimer = Timer.NOOP;
+    private Counter writtenCounter = Counter.NOOP;
+
+    /**
+     * sales receipts restored into the repository are added to the pay accumulator,
+     * so the service should be created before the repository is restored, see {@link #rebuildPayAccumulator()} otherwise
+     */
+    public SalesReceiptService(EmployeeCache employeeCache, SalesReceiptRepository salesReceiptRepository, PayAccumulatorRepository payAccumulatorRepository) {
+        this.employeeCache = employeeCache;
+        this.salesReceiptRepository = salesReceiptRepository;
+        this.payAccumulatorRepository = payAccumulatorRepository;
+        salesReceiptRepository.setRestoreListener(this::accumulate);
+    }
+
+    /**
+     * timers salesReceipt.add and salesReceipt.addBatch, counter salesReceipt.written
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.addTimer = metricsRegistry.timer("salesReceipt.add");
+        this.addBatchTimer = metricsRegistry.timer("salesReceipt.addBatch");
+        this.writtenCounter = metricsRegistry.counter("salesReceipt.written");
+    }
 
     public void addSalesReceipt(UUID employeeId, LocalDate localDate, Integer amount) {
+        long start = System.nanoTime();
+
+        SaleReceipt saleReceipt = newSalesReceipt(employeeId, localDate, amount);
+        salesReceiptRepository.createSaleReceipt(saleReceipt);
+        accumulate(saleReceipt);
+        writtenCounter.increment();
+        addTimer.record(System.nanoTime() - start);
 
-        Employee employee = employeeRepository.getEmployee(employeeId);
+    }
+
+    /**
+     * validates the employee and builds the sales receipt without writing it
+     */
+    SaleReceipt newSalesReceipt(UUID employeeId, LocalDate localDate, Integer amount) {
+        Employee employee = employeeCache.getEmployee(employeeId);
         if (employee == null) {
             throw new ResourceNotFoundException(String.format("%s id of employee doesn't exist", employeeId.toString()));
         } else if (!employee.getPaymentType().equals(PaymentType.C)) {
             throw new IncorrectPaymentTypeEmployeeException("The employee is not C type of employee");
         }
 
-        salesReceiptRepository.createSaleReceipt(SaleReceipt.builder()
+        return SaleReceipt.builder()
                 .id(UUID.randomUUID())
                 .employeeId(employeeId)
                 .date(localDate)
                 .amount(amount)
-                .build());
+                .build();
+    }
+
+    /**
+     * writes sales receipts built by {@link #newSalesReceipt} with one repository call
+     */
+    void addSalesReceipts(List<SaleReceipt> saleReceiptList) {
+        long start = System.nanoTime();
+        salesReceiptRepository.createSaleReceipts(saleReceiptList);
+        saleReceiptList.forEach(this::accumulate);
+        writtenCounter.add(saleReceiptList.size());
+        addBatchTimer.record(System.nanoTime() - start);
+    }
+
+    /**
+     * sets the sales amounts of the pay accumulator again from every stored sales receipt,
+     * e.g. when the service is created after the repository is restored. running it again gives the same amounts.
+     * not to be run while sales receipts are added.
+     */
+    public void rebuildPayAccumulator() {
+        payAccumulatorRepository.clearSalesAmounts();
+        salesReceiptRepository.forEachSaleReceipt(this::accumulate);
+    }
 
+    private void accumulate(SaleReceipt saleReceipt) {
+        payAccumulatorRepository.addSalesAmount(saleReceipt.getEmployeeId(), saleReceipt.getDate(), saleReceipt.getAmount());
     }
 
     public List<SaleReceipt> getListOfSalesReceiptById(UUID employeeId, LocalDate date) {
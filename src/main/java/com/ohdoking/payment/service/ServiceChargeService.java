@@ -1,22 +1,53 @@
 package com.ohdoking.payment.service;
 
 import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.metrics.Counter;
+import com.ohdoking.payment.metrics.MetricsRegistry;
+import com.ohdoking.payment.metrics.Timer;
 import com.ohdoking.payment.model.Employee;
 import com.ohdoking.payment.model.ServiceCharge;
 import com.ohdoking.payment.repository.*;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RequiredArgsConstructor
 public class ServiceChargeService {
 
-    final private EmployeeRepository employeeRepository;
+    final private EmployeeCache employeeCache;
     final private ServiceChargeRepository serviceChargeRepository;
 
+    private Timer addTimer = Timer.NOOP;
+    private Counter writtenCounter = Counter.NOOP;
+
+    /**
+     * timer serviceCharge.add, counter serviceCharge.written
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.addTimer = metricsRegistry.timer("serviceCharge.add");
+        this.writtenCounter = metricsRegistry.counter("serviceCharge.written");
+    }
+
+    /**
+     * adds a service charge dated today by the system clock, so the month it is deducted in depends on when it's called.
+     * a charge of another day, e.g. from an import or a replay, has to be added with {@link #addServiceCharge(UUID, LocalDate, Integer)}
+     */
     public void addServiceCharge(UUID employeeId, Integer amount) {
+        addServiceCharge(employeeId, LocalDate.now(), amount);
+    }
+
+    /**
+     * adds a service charge for the week of the date. charges are deducted from the first pay of the next month.
+     */
+    public void addServiceCharge(UUID employeeId, LocalDate date, Integer amount) {
+        long start = System.nanoTime();
 
-        Employee employee = employeeRepository.getEmployee(employeeId);
+        Employee employee = employeeCache.getEmployee(employeeId);
         if (employee == null) {
             throw new ResourceNotFoundException(String.format("%s id of employee doesn't exist", employeeId.toString()));
         }
@@ -24,11 +55,29 @@ public class ServiceChargeService {
         serviceChargeRepository.createServiceCharge(ServiceCharge.builder()
                 .id(UUID.randomUUID())
                 .employeeId(employeeId)
+                .date(date)
                 .amount(amount)
                 .build());
+        writtenCounter.increment();
+        addTimer.record(System.nanoTime() - start);
+    }
+
+    public List<ServiceCharge> getListOfServiceChargeById(UUID employeeId) {
+        return serviceChargeRepository.findByEmployeeId(employeeId);
+    }
+
+    /**
+     * @return total of the service charges of the employee dated in the month, in cents
+     */
+    public long getDeductionCents(UUID employeeId, YearMonth month) {
+        return serviceChargeRepository.getDeductionCents(employeeId, month);
     }
 
-    public ServiceCharge findServiceChargeById(UUID employeeId) {
-        return serviceChargeRepository.findById(employeeId);
+    /**
+     * @return total of the service charges dated in the month by employee id, in cents.
+     * employees without service charge in the month are not in the map.
+     */
+    public Map<UUID, Long> getDeductionCentsByIds(Set<UUID> employeeIds, YearMonth month) {
+        return serviceChargeRepository.getDeductionCentsByIds(employeeIds, month);
     }
 }
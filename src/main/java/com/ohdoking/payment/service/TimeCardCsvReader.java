@@ -0,0 +1,270 @@
+package com.ohdoking.payment.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * reads time card rows from a channel, one row per line : employee id,date,hours
+ * <p>
+ * e.g. 3f2504e0-4f89-11d3-9a0c-0305e82c3301,2020-01-17,7.5
+ * <p>
+ * bytes are parsed straight from one reused buffer into the fields of the current row,
+ * no string is built per line or per field. a row that can't be parsed has an error instead of fields.
+ * blank lines are skipped. not thread safe.
+ */
+final class TimeCardCsvReader {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+
+    final private ReadableByteChannel channel;
+    // always in read mode, position is the start of the unread bytes
+    final private ByteBuffer buffer;
+    private boolean endOfInput;
+    private long lineNumber;
+
+    // current row
+    private UUID employeeId;
+    private LocalDate date;
+    private double hours;
+    private String error;
+
+    TimeCardCsvReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    TimeCardCsvReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip();
+    }
+
+    /**
+     * moves to the next row
+     *
+     * @return false at the end of the input
+     */
+    boolean next() throws IOException {
+        boolean tooLong = false;
+        while (true) {
+            int lineEnd = indexOfLineEnd();
+            if (lineEnd < 0 && endOfInput) {
+                if (!buffer.hasRemaining() && !tooLong) {
+                    return false;
+                }
+                // last line without line break
+                lineEnd = buffer.limit();
+            }
+
+            if (lineEnd >= 0) {
+                int lineStart = buffer.position();
+                buffer.position(Math.min(lineEnd + 1, buffer.limit()));
+                lineNumber++;
+                if (tooLong) {
+                    setError("line is too long");
+                    return true;
+                }
+                if (parseLine(lineStart, lineEnd)) {
+                    return true;
+                }
+            } else {
+                if (buffer.remaining() == buffer.capacity()) {
+                    // the line doesn't fit in the buffer, drop it and report it once its end is found
+                    tooLong = true;
+                    buffer.position(buffer.limit());
+                }
+                fill();
+            }
+        }
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    UUID getEmployeeId() {
+        return employeeId;
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    double getHours() {
+        return hours;
+    }
+
+    /**
+     * @return why the current row can't be parsed, null if it's parsed
+     */
+    String getError() {
+        return error;
+    }
+
+    private void fill() throws IOException {
+        buffer.compact();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read < 0) {
+            endOfInput = true;
+        }
+    }
+
+    private int indexOfLineEnd() {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return false if the line is blank
+     */
+    private boolean parseLine(int start, int end) {
+        while (end > start && isBlank(buffer.get(end - 1))) {
+            end--;
+        }
+        while (start < end && isBlank(buffer.get(start))) {
+            start++;
+        }
+        if (start == end) {
+            return false;
+        }
+
+        int firstComma = indexOfComma(start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOfComma(firstComma + 1, end);
+        if (secondComma < 0 || indexOfComma(secondComma + 1, end) >= 0) {
+            setError("row should be employee id,date,hours");
+            return true;
+        }
+
+        employeeId = parseUuid(start, firstComma);
+        date = parseDate(firstComma + 1, secondComma);
+        hours = parseHours(secondComma + 1, end);
+        if (employeeId == null) {
+            setError("employee id is not an uuid");
+        } else if (date == null) {
+            setError("date is not yyyy-MM-dd");
+        } else if (hours < 0) {
+            setError("hours is not a number");
+        } else if (!OvertimeCalculator.isValidHours(hours)) {
+            setError("hours should be between 0 and 24");
+        } else {
+            error = null;
+        }
+        return true;
+    }
+
+    private void setError(String error) {
+        this.employeeId = null;
+        this.date = null;
+        this.hours = 0;
+        this.error = error;
+    }
+
+    private int indexOfComma(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private UUID parseUuid(int from, int to) {
+        if (to - from != 36) {
+            return null;
+        }
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        int digitCount = 0;
+        for (int i = 0; i < 36; i++) {
+            byte b = buffer.get(from + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (b != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit = Character.digit(b, 16);
+            if (digit < 0) {
+                return null;
+            }
+            if (digitCount < 16) {
+                mostSigBits = mostSigBits << 4 | digit;
+            } else {
+                leastSigBits = leastSigBits << 4 | digit;
+            }
+            digitCount++;
+        }
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private LocalDate parseDate(int from, int to) {
+        if (to - from != 10 || buffer.get(from + 4) != '-' || buffer.get(from + 7) != '-') {
+            return null;
+        }
+        int year = parseDigits(from, from + 4);
+        int month = parseDigits(from + 5, from + 7);
+        int day = parseDigits(from + 8, from + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private int parseDigits(int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return hours like 8 or 7.25, -1 if it's not a number
+     */
+    private double parseHours(int from, int to) {
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || ++digitCount > 15) {
+                return -1;
+            }
+            unscaled = unscaled * 10 + digit;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digitCount == 0 || scale >= POWERS_OF_TEN.length) {
+            return -1;
+        }
+        return scale <= 0 ? unscaled : unscaled / POWERS_OF_TEN[scale];
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -1,43 +1,238 @@
 package com.ohdoking.payment.service;
 
+import com.ohdoking.payment.exception.ImportException;
 import com.ohdoking.payment.exception.IncorrectPaymentTypeEmployeeException;
 import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.metrics.Counter;
+import com.ohdoking.payment.metrics.MetricsRegistry;
+import com.ohdoking.payment.metrics.Timer;
 import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.ImportReport;
 import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.RowError;
 import com.ohdoking.payment.model.TimeCard;
-import com.ohdoking.payment.repository.EmployeeRepository;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
 import com.ohdoking.payment.repository.TimeCardRepository;
-import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
-@RequiredArgsConstructor
 public class TimeCardService {
 
-    final private EmployeeRepository employeeRepository;
+    final private EmployeeCache employeeCache;
     final private TimeCardRepository timeCardRepository;
+    final private PayAccumulatorRepository payAccumulatorRepository;
+
+    private int importChunkSize = 10000;
+    private int maxRowErrors = 1000;
+
+    private Timer addTimer = Timer.NOOP;
+    private Timer importChunkTimer = Timer.NOOP;
+    private Counter rowsReadCounter = Counter.NOOP;
+    private Counter rowErrorsCounter = Counter.NOOP;
+    private Counter writtenCounter = Counter.NOOP;
+
+    /**
+     * time cards restored into the repository are added to the pay accumulator,
+     * so the service should be created before the repository is restored, see {@link #rebuildPayAccumulator()} otherwise
+     */
+    public TimeCardService(EmployeeCache employeeCache, TimeCardRepository timeCardRepository, PayAccumulatorRepository payAccumulatorRepository) {
+        this.employeeCache = employeeCache;
+        this.timeCardRepository = timeCardRepository;
+        this.payAccumulatorRepository = payAccumulatorRepository;
+        timeCardRepository.setRestoreListener(this::accumulate);
+    }
+
+    public void setImportChunkSize(int importChunkSize) {
+        if (importChunkSize <= 0) {
+            throw new IllegalArgumentException("importChunkSize should be greater than 0");
+        }
+        this.importChunkSize = importChunkSize;
+    }
+
+    public void setMaxRowErrors(int maxRowErrors) {
+        if (maxRowErrors <= 0) {
+            throw new IllegalArgumentException("maxRowErrors should be greater than 0");
+        }
+        this.maxRowErrors = maxRowErrors;
+    }
+
+    /**
+     * timers timeCard.add and timeCard.importChunk, counters timeCard.rowsRead, timeCard.rowErrors and timeCard.written
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.addTimer = metricsRegistry.timer("timeCard.add");
+        this.importChunkTimer = metricsRegistry.timer("timeCard.importChunk");
+        this.rowsReadCounter = metricsRegistry.counter("timeCard.rowsRead");
+        this.rowErrorsCounter = metricsRegistry.counter("timeCard.rowErrors");
+        this.writtenCounter = metricsRegistry.counter("timeCard.written");
+    }
 
     public void addTimeCard(UUID employeeId, LocalDate localDate, Double hours) {
+        long start = System.nanoTime();
 
-        Employee employee = employeeRepository.getEmployee(employeeId);
+        Employee employee = employeeCache.getEmployee(employeeId);
         if (employee == null) {
             throw new ResourceNotFoundException(String.format("%s id of employee doesn't exist", employeeId.toString()));
         } else if (!employee.getPaymentType().equals(PaymentType.H)) {
             throw new IncorrectPaymentTypeEmployeeException("The employee is not H type of employee");
+        } else if (hours != null && !OvertimeCalculator.isValidHours(hours)) {
+            throw new IllegalArgumentException("hours should be between 0 and 24");
         }
 
-        timeCardRepository.createTimeCard(TimeCard.builder()
+        TimeCard timeCard = TimeCard.builder()
                 .id(UUID.randomUUID())
                 .employeeId(employeeId)
                 .date(localDate)
                 .hours(hours)
-                .build());
+                .build();
+        timeCardRepository.createTimeCard(timeCard);
+        accumulate(timeCard);
+        writtenCounter.increment();
+        addTimer.record(System.nanoTime() - start);
+
+    }
+
+    /**
+     * imports a csv file of time cards (employee id,date,hours per line, see {@link TimeCardCsvReader}).
+     * <p>
+     * rows are read in chunks, the employees of a chunk are looked up at once
+     * and the valid rows of a chunk are written with one repository call.
+     * a row that fails is reported with its line number and the rest of the file is still imported.
+     * the cards of a chunk are merged into the stored cards of each employee in one pass,
+     * so rows don't need to be in date order: a chunk costs the cards of its employees, not one copy per older row.
+     *
+     * @param header true if the first line is a header to skip
+     */
+    public ImportReport importTimeCards(Path path, boolean header) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return importTimeCards(channel, header);
+        } catch (IOException e) {
+            throw new ImportException(String.format("can't read time cards from %s", path), e);
+        }
+    }
+
+    ImportReport importTimeCards(ReadableByteChannel channel, boolean header) throws IOException {
+        TimeCardCsvReader reader = new TimeCardCsvReader(channel);
+        if (header) {
+            reader.next();
+        }
+
+        ImportProgress progress = new ImportProgress(maxRowErrors);
+        List<TimeCard> chunk = new ArrayList<>(importChunkSize);
+        long[] chunkLineNumbers = new long[importChunkSize];
+        while (reader.next()) {
+            progress.rowCount++;
+            if (reader.getError() != null) {
+                progress.addRowError(reader.getLineNumber(), reader.getError());
+                continue;
+            }
+
+            chunkLineNumbers[chunk.size()] = reader.getLineNumber();
+            chunk.add(TimeCard.builder()
+                    .id(UUID.randomUUID())
+                    .employeeId(reader.getEmployeeId())
+                    .date(reader.getDate())
+                    .hours(reader.getHours())
+                    .build());
+            if (chunk.size() == importChunkSize) {
+                importChunk(chunk, chunkLineNumbers, progress);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, chunkLineNumbers, progress);
+        }
+        rowsReadCounter.add(progress.rowCount);
+        rowErrorsCounter.add(progress.errorCount);
+
+        return ImportReport.builder()
+                .rowCount(progress.rowCount)
+                .importedCount(progress.importedCount)
+                .errorCount(progress.errorCount)
+                .rowErrors(progress.rowErrors)
+                .build();
+    }
+
+    private void importChunk(List<TimeCard> chunk, long[] chunkLineNumbers, ImportProgress progress) {
+        long start = System.nanoTime();
+        Set<UUID> employeeIds = new HashSet<>();
+        for (TimeCard timeCard : chunk) {
+            employeeIds.add(timeCard.getEmployeeId());
+        }
+        Map<UUID, Employee> employeeMap = employeeCache.getEmployees(employeeIds);
+
+        List<TimeCard> timeCardList = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TimeCard timeCard = chunk.get(i);
+            Employee employee = employeeMap.get(timeCard.getEmployeeId());
+            if (employee == null) {
+                progress.addRowError(chunkLineNumbers[i], String.format("%s id of employee doesn't exist", timeCard.getEmployeeId().toString()));
+            } else if (!employee.getPaymentType().equals(PaymentType.H)) {
+                progress.addRowError(chunkLineNumbers[i], "The employee is not H type of employee");
+            } else {
+                timeCardList.add(timeCard);
+            }
+        }
+
+        if (!timeCardList.isEmpty()) {
+            timeCardRepository.createTimeCards(timeCardList);
+            timeCardList.forEach(this::accumulate);
+            progress.importedCount += timeCardList.size();
+            writtenCounter.add(timeCardList.size());
+        }
+        chunk.clear();
+        importChunkTimer.record(System.nanoTime() - start);
+    }
 
+    /**
+     * sets the hours of the pay accumulator again from every stored time card,
+     * e.g. when the service is created after the repository is restored. running it again gives the same hours.
+     * not to be run while time cards are added.
+     */
+    public void rebuildPayAccumulator() {
+        payAccumulatorRepository.clearHours();
+        timeCardRepository.forEachTimeCard(this::accumulate);
+    }
+
+    private void accumulate(TimeCard timeCard) {
+        // the overtime rule is linear in the rate, so it's kept as hours weighted by the premium
+        double regularHours = OvertimeCalculator.getRegularHours(timeCard.getHours());
+        double overtimeHours = OvertimeCalculator.getWeightedOvertimeHours(timeCard.getHours());
+        payAccumulatorRepository.addHours(timeCard.getEmployeeId(), timeCard.getDate(), regularHours, overtimeHours);
     }
 
     public List<TimeCard> getListOfTimeCardById(UUID id, LocalDate date) {
         return timeCardRepository.getListOfTimeCardById(id, date);
     }
+
+    public List<TimeCard> getTimeCards(UUID employeeId, LocalDate from, LocalDate to) {
+        return timeCardRepository.getTimeCards(employeeId, from, to);
+    }
+
+    private static class ImportProgress {
+        final private int maxRowErrors;
+        final private List<RowError> rowErrors = new ArrayList<>();
+        private long rowCount;
+        private long importedCount;
+        private long errorCount;
+
+        ImportProgress(int maxRowErrors) {
+            this.maxRowErrors = maxRowErrors;
+        }
+
+        void addRowError(long lineNumber, String message) {
+            errorCount++;
+            if (rowErrors.size() < maxRowErrors) {
+                rowErrors.add(RowError.builder()
+                        .lineNumber(lineNumber)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
 }
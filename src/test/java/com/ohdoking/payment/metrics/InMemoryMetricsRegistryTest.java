@@ -0,0 +1,77 @@
+package com.ohdoking.payment.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryMetricsRegistryTest {
+
+    @Test
+    public void givenSameNameWhenGetCounterThenAddToSameCounter() {
+
+        // given
+        InMemoryMetricsRegistry metricsRegistry = new InMemoryMetricsRegistry();
+
+        // when
+        metricsRegistry.counter("payday.paymentsWritten").add(3);
+        metricsRegistry.counter("payday.paymentsWritten").increment();
+
+        // then
+        assertSame(metricsRegistry.counter("payday.paymentsWritten"), metricsRegistry.counter("payday.paymentsWritten"));
+        assertEquals(4, metricsRegistry.getCount("payday.paymentsWritten"));
+        assertEquals(0, metricsRegistry.getCount("payday.employeesProcessed"));
+    }
+
+    @Test
+    public void givenRecordedDurationsWhenGetPercentileThenReturnUpperBoundOfBucket() {
+
+        // given
+        InMemoryMetricsRegistry metricsRegistry = new InMemoryMetricsRegistry();
+        Timer timer = metricsRegistry.timer("payday");
+
+        // when
+        // 99 durations of 1000ns and 1 of 1000000ns
+        for (int i = 0; i < 99; i++) {
+            timer.record(1000);
+        }
+        timer.record(1_000_000);
+
+        // then
+        HistogramTimer histogramTimer = metricsRegistry.getTimer("payday");
+        assertEquals(100, histogramTimer.getCount());
+        assertEquals(1_000_000, histogramTimer.getMaxNanos());
+        assertEquals(1_099_000, histogramTimer.getTotalNanos());
+        // 1000 is in the bucket [512, 1024)
+        assertEquals(1023, histogramTimer.getPercentileNanos(50));
+        assertEquals(1023, histogramTimer.getPercentileNanos(99));
+        assertEquals(1_000_000, histogramTimer.getPercentileNanos(100));
+    }
+
+    @Test
+    public void givenMBeanServerWhenRegisterMBeansThenExposeExistingAndNewMetrics() throws Exception {
+
+        // given
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        InMemoryMetricsRegistry metricsRegistry = new InMemoryMetricsRegistry();
+        metricsRegistry.counter("payday.employeesProcessed").add(2);
+
+        // when
+        metricsRegistry.registerMBeans(mBeanServer);
+        metricsRegistry.timer("payday.calculate").record(2_000_000);
+
+        // then
+        ObjectName counterName = new ObjectName("com.ohdoking.payment:type=Counter,name=\"payday.employeesProcessed\"");
+        ObjectName timerName = new ObjectName("com.ohdoking.payment:type=Timer,name=\"payday.calculate\"");
+        assertTrue(mBeanServer.isRegistered(counterName));
+        assertTrue(mBeanServer.isRegistered(timerName));
+        assertEquals(2L, mBeanServer.getAttribute(counterName, "Count"));
+        assertEquals(1L, mBeanServer.getAttribute(timerName, "Count"));
+        assertEquals(2.0, (Double) mBeanServer.getAttribute(timerName, "MaxMillis"), 0.0);
+    }
+}
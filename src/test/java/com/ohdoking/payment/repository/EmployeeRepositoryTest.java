@@ -0,0 +1,96 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeRepositoryTest {
+
+    EmployeeRepository employeeRepository = new EmployeeRepository();
+
+    @Test
+    public void givenEmployeesWhenExecuteGetListOfEmployeeByPaymentTypeThenReturnOnlyThatType() {
+
+        // given
+        Employee elsa = hourlyEmployee("Elsa", PaymentWay.DIRECT);
+        Employee dokeun = Employee.builder()
+                .id(UUID.randomUUID())
+                .name("Dokeun")
+                .address("Busan")
+                .paymentType(PaymentType.S)
+                .monthlyPayCents(1000000)
+                .paymentWay(PaymentWay.MAIL)
+                .build();
+
+        employeeRepository.addEmployee(elsa);
+        employeeRepository.addEmployee(dokeun);
+
+        // when
+        List<Employee> actual = employeeRepository.getListOfEmployeeByPaymentType(PaymentType.H);
+
+        // then
+        assertEquals(1, actual.size());
+        assertSame(elsa, actual.get(0));
+        assertSame(dokeun, employeeRepository.getEmployee(dokeun.getId()));
+        assertEquals(1, employeeRepository.getListOfEmployeeByPaymentWay(PaymentWay.MAIL).size());
+        assertTrue(employeeRepository.getListOfEmployeeByPaymentType(PaymentType.C).isEmpty());
+    }
+
+    @Test
+    public void givenReplacedEmployeeWhenExecuteAddEmployeeThenMoveIndexes() {
+
+        // given
+        Employee elsa = hourlyEmployee("Elsa", PaymentWay.DIRECT);
+        employeeRepository.addEmployee(elsa);
+
+        // when
+        employeeRepository.addEmployee(Employee.builder()
+                .id(elsa.getId())
+                .name("Elsa")
+                .address("Berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1200)
+                .paymentWay(PaymentWay.MAIL)
+                .build());
+
+        // then
+        assertTrue(employeeRepository.getListOfEmployeeByPaymentWay(PaymentWay.DIRECT).isEmpty());
+        assertEquals(1, employeeRepository.getListOfEmployeeByPaymentWay(PaymentWay.MAIL).size());
+        assertEquals(1200, employeeRepository.getEmployee(elsa.getId()).getHourlyRateCents());
+    }
+
+    @Test
+    public void givenDeletedEmployeeWhenExecuteDeleteEmployeeThenThrowResourceNotFoundException() {
+
+        // given
+        Employee elsa = hourlyEmployee("Elsa", null);
+        employeeRepository.addEmployee(elsa);
+        employeeRepository.deleteEmployee(elsa.getId());
+
+        // when
+        ResourceNotFoundException actual = assertThrows(ResourceNotFoundException.class, () -> employeeRepository.deleteEmployee(elsa.getId()));
+
+        // then
+        assertEquals(elsa.getId().toString() + " id of employee doesn't exist", actual.getMessage());
+        assertNull(employeeRepository.getEmployee(elsa.getId()));
+        assertTrue(employeeRepository.getListOfEmployeeByPaymentType(PaymentType.H).isEmpty());
+    }
+
+    private Employee hourlyEmployee(String name, PaymentWay paymentWay) {
+        return Employee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address("Berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .paymentWay(paymentWay)
+                .build();
+    }
+}
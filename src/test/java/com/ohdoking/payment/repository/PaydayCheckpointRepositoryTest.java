@@ -0,0 +1,62 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.PaydayCheckpoint;
+import com.ohdoking.payment.model.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PaydayCheckpointRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenSavedCheckpointsWhenFindByRunIdThenReturnLatestCheckpoint() {
+
+        // given
+        UUID runId = UUID.randomUUID();
+        UUID lastEmployeeId = UUID.randomUUID();
+        PaydayCheckpointRepository paydayCheckpointRepository = new PaydayCheckpointRepository(directory);
+        paydayCheckpointRepository.save(PaydayCheckpoint.builder()
+                .runId(runId)
+                .paymentDate(LocalDate.of(2020, 1, 10))
+                .completedPaymentTypes(EnumSet.noneOf(PaymentType.class))
+                .lastEmployeeIdByPaymentType(new EnumMap<>(Map.of(PaymentType.H, UUID.randomUUID())))
+                .build());
+        paydayCheckpointRepository.save(PaydayCheckpoint.builder()
+                .runId(runId)
+                .paymentDate(LocalDate.of(2020, 1, 10))
+                .completedPaymentTypes(EnumSet.of(PaymentType.H))
+                .lastEmployeeIdByPaymentType(new EnumMap<>(Map.of(PaymentType.C, lastEmployeeId)))
+                .build());
+
+        // when
+        PaydayCheckpoint actual = new PaydayCheckpointRepository(directory).findByRunId(runId);
+
+        // then
+        assertEquals(runId, actual.getRunId());
+        assertEquals(LocalDate.of(2020, 1, 10), actual.getPaymentDate());
+        assertEquals(EnumSet.of(PaymentType.H), actual.getCompletedPaymentTypes());
+        assertEquals(Map.of(PaymentType.C, lastEmployeeId), actual.getLastEmployeeIdByPaymentType());
+    }
+
+    @Test
+    public void givenNoCheckpointWhenFindByRunIdThenReturnNull() {
+
+        // when
+        PaydayCheckpoint actual = new PaydayCheckpointRepository(directory).findByRunId(UUID.randomUUID());
+
+        // then
+        assertNull(actual);
+    }
+}
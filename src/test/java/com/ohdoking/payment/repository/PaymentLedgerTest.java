@@ -0,0 +1,135 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PaymentLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenCommittedPaymentsWhenReopenLedgerThenReadSamePaymentsInOrder() {
+
+        // given
+        List<Payment> paymentList = new ArrayList<>();
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                Payment payment = payment(10050L * i, PaymentWay.values()[i % 3]);
+                paymentList.add(payment);
+                paymentLedger.append(payment);
+            }
+            paymentLedger.commit();
+        }
+
+        // when
+        List<Payment> actual = new ArrayList<>();
+        PaymentLedger reopened = new PaymentLedger(directory, 4);
+        reopened.forEach(actual::add);
+
+        // then
+        assertEquals(10, reopened.size());
+        assertEquals(paymentList.stream().map(Payment::getId).collect(Collectors.toList()),
+                actual.stream().map(Payment::getId).collect(Collectors.toList()));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(paymentList.get(i).getEmployeeId(), actual.get(i).getEmployeeId());
+            assertEquals(paymentList.get(i).getSalaryAmountCents(), actual.get(i).getSalaryAmountCents());
+            assertEquals(paymentList.get(i).getPaymentDate(), actual.get(i).getPaymentDate());
+            assertEquals(paymentList.get(i).getPaymentType(), actual.get(i).getPaymentType());
+            assertEquals(paymentList.get(i).getPaymentWay(), actual.get(i).getPaymentWay());
+            assertEquals(paymentList.get(i).getId(), reopened.read(i).getId());
+            assertEquals(paymentList.get(i).getId(), reopened.readId(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> reopened.read(10));
+        reopened.close();
+    }
+
+    @Test
+    public void givenTornLastRecordWhenReopenLedgerThenDropItAndAppendOverIt() throws IOException {
+
+        // given
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory, 8)) {
+            paymentLedger.append(payment(1000, PaymentWay.DIRECT));
+            paymentLedger.append(payment(2000, PaymentWay.DIRECT));
+            paymentLedger.commit();
+        }
+        Path segment = Files.list(directory).findFirst().get();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // break the second record
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 64 + PaymentLedger.RECORD_SIZE + 20);
+        }
+
+        // when
+        PaymentLedger reopened = new PaymentLedger(directory, 8);
+        reopened.append(payment(3000, PaymentWay.MAIL));
+
+        // then
+        List<Payment> actual = new ArrayList<>();
+        reopened.forEach(actual::add);
+        assertEquals(2, reopened.size());
+        assertEquals(1000, actual.get(0).getSalaryAmountCents());
+        assertEquals(3000, actual.get(1).getSalaryAmountCents());
+        reopened.close();
+    }
+
+    @Test
+    public void givenTornRecordBeforeWholeUncommittedRecordWhenReopenTwiceThenDontBringItBack() throws IOException {
+
+        // given
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory, 8)) {
+            paymentLedger.append(payment(1000, PaymentWay.DIRECT));
+            paymentLedger.append(payment(2000, PaymentWay.DIRECT));
+            paymentLedger.append(payment(3000, PaymentWay.DIRECT));
+            paymentLedger.commit();
+        }
+        Path segment = Files.list(directory).findFirst().get();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // break the second record, the third one stays whole
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 64 + PaymentLedger.RECORD_SIZE + 20);
+        }
+        try (PaymentLedger reopened = new PaymentLedger(directory, 8)) {
+            reopened.append(payment(4000, PaymentWay.MAIL));
+            reopened.commit();
+        }
+
+        // when
+        List<Payment> actual = new ArrayList<>();
+        PaymentLedger reopened = new PaymentLedger(directory, 8);
+        reopened.forEach(actual::add);
+
+        // then
+        assertEquals(2, reopened.size());
+        assertEquals(1000, actual.get(0).getSalaryAmountCents());
+        assertEquals(4000, actual.get(1).getSalaryAmountCents());
+        reopened.close();
+    }
+
+    private Payment payment(long salaryAmountCents, PaymentWay paymentWay) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .employeeId(UUID.randomUUID())
+                .salaryAmountCents(salaryAmountCents)
+                .paymentType(PaymentType.values()[paymentWay.ordinal() % PaymentType.values().length])
+                .paymentWay(paymentWay)
+                .paymentDate(LocalDate.of(2020, 1, 31))
+                .build();
+    }
+}
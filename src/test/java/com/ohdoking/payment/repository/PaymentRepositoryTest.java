@@ -0,0 +1,132 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.exception.PersistenceException;
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.spy;
+
+public class PaymentRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenPaymentSavedBeforeReopenWhenSavePaymentsAgainThenSaveOnlyNewPayment() {
+
+        // given
+        Payment saved = payment();
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory, 4)) {
+            new PaymentRepository(paymentLedger).savePayments(List.of(saved));
+        }
+
+        // when
+        Payment added = payment();
+        List<UUID> actual = new ArrayList<>();
+        List<UUID> actualOnDate = new ArrayList<>();
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory, 4)) {
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            paymentRepository.savePayments(List.of(saved, added, added));
+            paymentRepository.forEachPayment(payment -> actual.add(payment.getId()));
+            paymentRepository.forEachPaymentOn(LocalDate.of(2020, 4, 30), payment -> actualOnDate.add(payment.getId()));
+
+            // then
+            assertTrue(paymentRepository.contains(added));
+        }
+        assertEquals(List.of(saved.getId(), added.getId()), actual);
+        assertEquals(actual, actualOnDate);
+    }
+
+    @Test
+    public void givenCommitFailedWhenSavePaymentsAgainThenSavePaymentOnce() {
+
+        // given
+        Payment payment = payment();
+        List<UUID> actual = new ArrayList<>();
+        try (PaymentLedger paymentLedger = spy(new PaymentLedger(directory, 4))) {
+            willThrow(new PersistenceException("disk is full")).willCallRealMethod().given(paymentLedger).commit();
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            assertThrows(PersistenceException.class, () -> paymentRepository.savePayments(List.of(payment)));
+            assertFalse(paymentRepository.contains(payment));
+
+            // when
+            paymentRepository.savePayments(List.of(payment));
+
+            // then
+            assertTrue(paymentRepository.contains(payment));
+            paymentRepository.forEachPayment(saved -> actual.add(saved.getId()));
+        }
+        assertEquals(List.of(payment.getId()), actual);
+    }
+
+    @Test
+    public void givenPaymentsSavedAfterDateWhenReadYearToDateMeanwhileThenReadSameTotal() throws Exception {
+
+        // given
+        Payment first = payment();
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory)) {
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            paymentRepository.savePayments(List.of(first));
+            AtomicBoolean done = new AtomicBoolean();
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            Future<Long> reads = executorService.submit(() -> {
+                long count = 0;
+                while (!done.get()) {
+                    assertEquals(100000, paymentRepository.getYearToDateGrossCents(first.getEmployeeId(), first.getPaymentDate()));
+                    assertEquals(100000, paymentRepository.getQuarterToDateGrossCents(first.getEmployeeId(), first.getPaymentDate()));
+                    count++;
+                }
+                return count;
+            });
+
+            // when
+            for (int i = 0; i < 20; i++) {
+                List<Payment> paymentList = new ArrayList<>();
+                for (int j = 0; j < 500; j++) {
+                    paymentList.add(payment(first.getEmployeeId(), first.getPaymentDate().plusDays(1 + j % 200)));
+                }
+                paymentRepository.savePayments(paymentList);
+            }
+            done.set(true);
+
+            // then
+            assertTrue(reads.get(10, TimeUnit.SECONDS) > 0);
+            executorService.shutdown();
+            assertEquals(100000 * 10001L, paymentRepository.getYearToDateGrossCents(first.getEmployeeId(), LocalDate.of(2020, 12, 31)));
+        }
+    }
+
+    private static Payment payment() {
+        return payment(UUID.randomUUID(), LocalDate.of(2020, 4, 30));
+    }
+
+    private static Payment payment(UUID employeeId, LocalDate paymentDate) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employeeId)
+                .salaryAmountCents(100000)
+                .paymentDate(paymentDate)
+                .paymentType(PaymentType.S)
+                .paymentWay(PaymentWay.MAIL)
+                .build();
+    }
+}
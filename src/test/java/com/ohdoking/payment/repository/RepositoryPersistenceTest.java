@@ -0,0 +1,220 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.exception.PersistenceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RepositoryPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenSnapshotAndLogTailWhenReopenThenRestoreAllRepositories() {
+
+        // given
+        UUID elsaEmployeeId = UUID.randomUUID();
+        UUID kennyEmployeeId = UUID.randomUUID();
+
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        TimeCardRepository timeCardRepository = new TimeCardRepository();
+        SalesReceiptRepository salesReceiptRepository = new SalesReceiptRepository();
+        ServiceChargeRepository serviceChargeRepository = new ServiceChargeRepository();
+        try (RepositoryPersistence persistence = new RepositoryPersistence(directory,
+                employeeRepository, timeCardRepository, salesReceiptRepository, serviceChargeRepository)) {
+            persistence.open();
+
+            employeeRepository.addEmployee(employee(elsaEmployeeId, "Elsa", PaymentType.H));
+            timeCardRepository.createTimeCard(timeCard(elsaEmployeeId, LocalDate.of(2020, 1, 6)));
+
+            persistence.snapshot();
+
+            // log tail after the snapshot
+            employeeRepository.addEmployee(employee(kennyEmployeeId, "Kenny", PaymentType.C));
+            timeCardRepository.createTimeCard(timeCard(elsaEmployeeId, LocalDate.of(2020, 1, 7)));
+            salesReceiptRepository.createSaleReceipt(SaleReceipt.builder()
+                    .id(UUID.randomUUID())
+                    .employeeId(kennyEmployeeId)
+                    .date(LocalDate.of(2020, 1, 7))
+                    .amount(250)
+                    .build());
+            serviceChargeRepository.createServiceCharge(ServiceCharge.builder()
+                    .id(UUID.randomUUID())
+                    .employeeId(kennyEmployeeId)
+                    .date(LocalDate.of(2020, 1, 7))
+                    .amount(10)
+                    .build());
+            employeeRepository.deleteEmployee(elsaEmployeeId);
+        }
+
+        // when
+        EmployeeRepository restoredEmployeeRepository = new EmployeeRepository();
+        TimeCardRepository restoredTimeCardRepository = new TimeCardRepository();
+        SalesReceiptRepository restoredSalesReceiptRepository = new SalesReceiptRepository();
+        ServiceChargeRepository restoredServiceChargeRepository = new ServiceChargeRepository();
+        try (RepositoryPersistence persistence = new RepositoryPersistence(directory, restoredEmployeeRepository,
+                restoredTimeCardRepository, restoredSalesReceiptRepository, restoredServiceChargeRepository)) {
+            persistence.open();
+
+            // then
+            assertNull(restoredEmployeeRepository.getEmployee(elsaEmployeeId));
+            assertEquals("Kenny", restoredEmployeeRepository.getEmployee(kennyEmployeeId).getName());
+            assertEquals(10000, restoredEmployeeRepository.getEmployee(kennyEmployeeId).getCommissionRatePpm());
+            assertEquals(2, restoredTimeCardRepository.getListOfTimeCardById(elsaEmployeeId, LocalDate.of(2020, 1, 1)).size());
+            assertEquals(250, restoredSalesReceiptRepository.getListOfSalesReceiptById(kennyEmployeeId, LocalDate.of(2020, 1, 1)).get(0).getAmount());
+            assertEquals(10, restoredServiceChargeRepository.findByEmployeeId(kennyEmployeeId).get(0).getAmount());
+            assertEquals(1000, restoredServiceChargeRepository.getDeductionCents(kennyEmployeeId, YearMonth.of(2020, 1)));
+        }
+    }
+
+    @Test
+    public void givenSnapshotWhenTakeSnapshotThenDeleteReplacedFiles() throws IOException {
+
+        // given
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        try (RepositoryPersistence persistence = new RepositoryPersistence(directory, employeeRepository)) {
+            persistence.open();
+            employeeRepository.addEmployee(employee(UUID.randomUUID(), "Elsa", PaymentType.H));
+
+            // when
+            persistence.snapshot();
+            persistence.snapshot();
+        }
+
+        // then
+        // the last snapshot and log, and the lock file
+        assertEquals(3, Files.list(directory).count());
+    }
+
+    @Test
+    public void givenWritersOfManyEmployeesAndSnapshotsWhenReopenThenRestoreEveryTimeCard() throws Exception {
+
+        // given
+        int threadCount = 8;
+        int cardsPerThread = 500;
+        TimeCardRepository timeCardRepository = new TimeCardRepository();
+        List<UUID> employeeIds = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            employeeIds.add(UUID.randomUUID());
+        }
+        try (RepositoryPersistence persistence = new RepositoryPersistence(directory, timeCardRepository)) {
+            persistence.open();
+            ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futureList = new ArrayList<>();
+            for (UUID employeeId : employeeIds) {
+                futureList.add(executorService.submit(() -> {
+                    for (int i = 0; i < cardsPerThread; i++) {
+                        timeCardRepository.createTimeCard(timeCard(employeeId, LocalDate.of(2020, 1, 1).plusDays(i)));
+                    }
+                }));
+            }
+            // snapshots while the log is written
+            for (int i = 0; i < 5; i++) {
+                persistence.snapshot();
+            }
+            for (Future<?> future : futureList) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executorService.shutdown();
+        }
+
+        // when
+        TimeCardRepository restoredTimeCardRepository = new TimeCardRepository();
+        try (RepositoryPersistence persistence = new RepositoryPersistence(directory, restoredTimeCardRepository)) {
+            persistence.open();
+
+            // then
+            assertEquals(threadCount * cardsPerThread, restoredTimeCardRepository.size());
+            for (UUID employeeId : employeeIds) {
+                assertEquals(cardsPerThread, restoredTimeCardRepository.getListOfTimeCardById(employeeId, LocalDate.of(2020, 1, 1)).size());
+            }
+        }
+    }
+
+    @Test
+    public void givenWriterOpenWhenOpenSameDirectoryThenRejectUntilWriterCloses() {
+
+        // given
+        UUID elsaEmployeeId = UUID.randomUUID();
+        EmployeeRepository employeeRepository = new EmployeeRepository();
+        RepositoryPersistence writer = new RepositoryPersistence(directory, employeeRepository);
+        writer.open();
+        employeeRepository.addEmployee(employee(elsaEmployeeId, "Elsa", PaymentType.H));
+
+        // when
+        PersistenceException secondWriter = assertThrows(PersistenceException.class,
+                () -> new RepositoryPersistence(directory, new EmployeeRepository()).open());
+        PersistenceException reader = assertThrows(PersistenceException.class,
+                () -> new RepositoryPersistence(directory, new EmployeeRepository()).openReadOnly());
+        writer.close();
+
+        // then
+        assertEquals(String.format("repositories in %s are opened by another process", directory), secondWriter.getMessage());
+        assertEquals(secondWriter.getMessage(), reader.getMessage());
+        List<Path> filesBefore = listFiles();
+        EmployeeRepository firstReaderRepository = new EmployeeRepository();
+        EmployeeRepository secondReaderRepository = new EmployeeRepository();
+        new RepositoryPersistence(directory, firstReaderRepository).openReadOnly();
+        new RepositoryPersistence(directory, secondReaderRepository).openReadOnly();
+        assertEquals("Elsa", firstReaderRepository.getEmployee(elsaEmployeeId).getName());
+        assertEquals("Elsa", secondReaderRepository.getEmployee(elsaEmployeeId).getName());
+        assertEquals(filesBefore, listFiles());
+        assertThrows(IllegalStateException.class, () -> firstReaderRepository.deleteEmployee(elsaEmployeeId));
+
+        // and a writer can open it while readers keep what they loaded
+        try (RepositoryPersistence nextWriter = new RepositoryPersistence(directory, new EmployeeRepository())) {
+            nextWriter.open();
+        }
+    }
+
+    private List<Path> listFiles() {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Employee employee(UUID id, String name, PaymentType paymentType) {
+        return Employee.builder()
+                .id(id)
+                .name(name)
+                .address("Berlin")
+                .paymentType(paymentType)
+                .hourlyRateCents(PaymentType.H.equals(paymentType) ? 1000 : 0)
+                .monthlyPayCents(PaymentType.C.equals(paymentType) ? 100000 : 0)
+                .commissionRatePpm(PaymentType.C.equals(paymentType) ? 10000 : 0)
+                .paymentWay(PaymentWay.DIRECT)
+                .build();
+    }
+
+    private TimeCard timeCard(UUID employeeId, LocalDate date) {
+        return TimeCard.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employeeId)
+                .date(date)
+                .hours(8.0)
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.ServiceCharge;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ServiceChargeRepositoryTest {
+
+    @Test
+    public void givenServiceChargesOfSeveralMonthsWhenGetDeductionCentsThenSumChargesOfTheMonth() {
+
+        // given
+        UUID kenny = UUID.randomUUID();
+        UUID elsa = UUID.randomUUID();
+        ServiceChargeRepository serviceChargeRepository = new ServiceChargeRepository();
+        serviceChargeRepository.createServiceCharge(serviceCharge(kenny, LocalDate.of(2020, 1, 7), 10));
+        serviceChargeRepository.createServiceCharge(serviceCharge(kenny, LocalDate.of(2020, 1, 28), 15));
+        serviceChargeRepository.createServiceCharge(serviceCharge(kenny, LocalDate.of(2020, 2, 4), 20));
+        serviceChargeRepository.createServiceCharge(serviceCharge(elsa, LocalDate.of(2020, 2, 11), 5));
+
+        // when
+        long actual = serviceChargeRepository.getDeductionCents(kenny, YearMonth.of(2020, 1));
+        Map<UUID, Long> actualByIds = serviceChargeRepository.getDeductionCentsByIds(Set.of(kenny, elsa), YearMonth.of(2020, 1));
+
+        // then
+        assertEquals(2500, actual);
+        assertEquals(Map.of(kenny, 2500L), actualByIds);
+        assertEquals(Map.of(kenny, 2000L, elsa, 500L), serviceChargeRepository.getDeductionCentsByIds(Set.of(kenny, elsa), YearMonth.of(2020, 2)));
+        assertEquals(0, serviceChargeRepository.getDeductionCents(elsa, YearMonth.of(2020, 1)));
+        assertEquals(3, serviceChargeRepository.findByEmployeeId(kenny).size());
+    }
+
+    private static ServiceCharge serviceCharge(UUID employeeId, LocalDate date, int amount) {
+        return ServiceCharge.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employeeId)
+                .date(date)
+                .amount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.ohdoking.payment.repository;
+
+import com.ohdoking.payment.model.TimeCard;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeCardRepositoryTest {
+
+    TimeCardRepository timeCardRepository = new TimeCardRepository();
+
+    @Test
+    public void givenTimeCardWhenExecuteCreateTimeCardThenReadSameTimeCard() {
+
+        // given
+        TimeCard timeCard = TimeCard.builder()
+                .id(UUID.randomUUID())
+                .employeeId(UUID.randomUUID())
+                .date(LocalDate.of(2020, 1, 3))
+                .hours(7.5)
+                .build();
+
+        // when
+        timeCardRepository.createTimeCard(timeCard);
+
+        // then
+        List<TimeCard> actual = timeCardRepository.getListOfTimeCardById(timeCard.getEmployeeId(), LocalDate.of(2020, 1, 1));
+        assertEquals(1, actual.size());
+        assertEquals(timeCard.getId(), actual.get(0).getId());
+        assertEquals(timeCard.getEmployeeId(), actual.get(0).getEmployeeId());
+        assertEquals(timeCard.getDate(), actual.get(0).getDate());
+        assertEquals(timeCard.getHours(), actual.get(0).getHours());
+    }
+
+    @Test
+    public void givenTimeCardsOutOfDateOrderWhenExecuteGetTimeCardsThenReturnCardsInRangeInDateOrder() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int day : new int[]{9, 3, 7, 1, 5, 3, 8, 0, 2, 6, 4}) {
+            timeCardRepository.createTimeCard(TimeCard.builder()
+                    .id(UUID.randomUUID())
+                    .employeeId(employeeId)
+                    .date(start.plusDays(day))
+                    .hours((double) day)
+                    .build());
+        }
+
+        // when
+        List<TimeCard> actual = timeCardRepository.getTimeCards(employeeId, start.plusDays(3), start.plusDays(7));
+
+        // then
+        assertEquals(List.of(3.0, 3.0, 4.0, 5.0, 6.0, 7.0), actual.stream().map(TimeCard::getHours).collect(Collectors.toList()));
+        assertEquals(11, timeCardRepository.getTimeCards(employeeId, start.minusYears(1), start.plusYears(1)).size());
+        assertTrue(timeCardRepository.getTimeCards(employeeId, start.plusDays(10), start.plusDays(20)).isEmpty());
+        assertTrue(timeCardRepository.getTimeCards(employeeId, start.plusDays(7), start.plusDays(3)).isEmpty());
+        assertTrue(timeCardRepository.getTimeCards(UUID.randomUUID(), start, start.plusDays(20)).isEmpty());
+    }
+
+    @Test
+    public void givenChunkOfTimeCardsWhenExecuteCreateTimeCardsThenReadEveryTimeCard() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        List<TimeCard> timeCardList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            timeCardList.add(TimeCard.builder()
+                    .id(UUID.randomUUID())
+                    .employeeId(employeeId)
+                    .date(LocalDate.of(2020, 1, 13).plusDays(i))
+                    .hours(8.0)
+                    .build());
+        }
+
+        // when
+        timeCardRepository.createTimeCards(timeCardList);
+
+        // then
+        assertEquals(5, timeCardRepository.size());
+        assertEquals(3, timeCardRepository.getListOfTimeCardById(employeeId, LocalDate.of(2020, 1, 15)).size());
+    }
+
+    @Test
+    public void givenChunksInDescendingDateOrderWhenExecuteCreateTimeCardsThenReturnCardsInDateOrder() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        UUID otherEmployeeId = UUID.randomUUID();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        timeCardRepository.createTimeCard(TimeCard.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employeeId)
+                .date(start.plusDays(5))
+                .hours(5.0)
+                .build());
+
+        // when
+        for (int chunk = 0; chunk < 3; chunk++) {
+            List<TimeCard> timeCardList = new ArrayList<>();
+            for (int day = 9 - chunk * 4; day > 9 - chunk * 4 - 4 && day >= 0; day--) {
+                for (UUID id : List.of(employeeId, otherEmployeeId)) {
+                    timeCardList.add(TimeCard.builder()
+                            .id(UUID.randomUUID())
+                            .employeeId(id)
+                            .date(start.plusDays(day))
+                            .hours(day + 0.5)
+                            .build());
+                }
+            }
+            timeCardRepository.createTimeCards(timeCardList);
+        }
+
+        // then
+        assertEquals(21, timeCardRepository.size());
+        assertEquals(List.of(0.5, 1.5, 2.5, 3.5, 4.5, 5.0, 5.5, 6.5, 7.5, 8.5, 9.5),
+                timeCardRepository.getTimeCards(employeeId, start, start.plusDays(9)).stream()
+                        .map(TimeCard::getHours).collect(Collectors.toList()));
+        assertEquals(List.of(3.5, 4.5), timeCardRepository.getTimeCards(otherEmployeeId, start.plusDays(3), start.plusDays(4)).stream()
+                .map(TimeCard::getHours).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void givenConcurrentWritersAndReadersWhenExecuteCreateTimeCardThenKeepEveryTimeCard() throws Exception {
+
+        // given
+        int writerCount = 8;
+        int cardCount = 2000;
+        List<UUID> employeeIds = new ArrayList<>();
+        for (int i = 0; i < writerCount; i++) {
+            employeeIds.add(UUID.randomUUID());
+        }
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(writerCount + 1);
+
+        // when
+        List<Future<?>> futureList = new ArrayList<>();
+        for (UUID employeeId : employeeIds) {
+            futureList.add(executor.submit(() -> {
+                for (int i = 0; i < cardCount; i++) {
+                    timeCardRepository.createTimeCard(TimeCard.builder()
+                            .id(UUID.randomUUID())
+                            .employeeId(employeeId)
+                            .date(start.plusDays(i % 30))
+                            .hours(8.0)
+                            .build());
+                }
+            }));
+        }
+        // a reader never sees a half written card nor an unsorted view
+        Future<?> reader = executor.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                LocalDate previous = start;
+                for (TimeCard timeCard : timeCardRepository.getListOfTimeCardById(employeeIds.get(i % writerCount), start)) {
+                    assertEquals(8.0, timeCard.getHours());
+                    assertFalse(timeCard.getDate().isBefore(previous));
+                    previous = timeCard.getDate();
+                }
+            }
+        });
+        for (Future<?> future : futureList) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // then
+        assertEquals(writerCount * cardCount, timeCardRepository.size());
+        for (UUID employeeId : employeeIds) {
+            assertEquals(cardCount, timeCardRepository.getListOfTimeCardById(employeeId, start).size());
+        }
+    }
+}
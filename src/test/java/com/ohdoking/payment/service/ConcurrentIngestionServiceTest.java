@@ -0,0 +1,102 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentIngestionServiceTest {
+
+    EmployeeRepository employeeRepository = new EmployeeRepository();
+    TimeCardRepository timeCardRepository = new TimeCardRepository();
+    SalesReceiptRepository salesReceiptRepository = new SalesReceiptRepository();
+    ServiceChargeRepository serviceChargeRepository = new ServiceChargeRepository();
+    PayAccumulatorRepository payAccumulatorRepository = new PayAccumulatorRepository();
+    EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+
+    ConcurrentIngestionService concurrentIngestionService = new ConcurrentIngestionService(
+            new TimeCardService(employeeCache, timeCardRepository, payAccumulatorRepository),
+            new SalesReceiptService(employeeCache, salesReceiptRepository, payAccumulatorRepository),
+            new ServiceChargeService(employeeCache, serviceChargeRepository),
+            IngestionExecutors.newFixedExecutor(16));
+
+    @AfterEach
+    public void tearDown() {
+        concurrentIngestionService.close();
+    }
+
+    @Test
+    public void givenManyConcurrentSubmissionsWhenExecuteSubmitThenWriteEveryRecord() throws Exception {
+
+        // given
+        List<UUID> hourlyEmployeeIds = new ArrayList<>();
+        List<UUID> commissionedEmployeeIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            hourlyEmployeeIds.add(addEmployee(PaymentType.H));
+            commissionedEmployeeIds.add(addEmployee(PaymentType.C));
+        }
+        LocalDate monday = LocalDate.of(2020, 1, 13);
+
+        // when
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futureList.add(concurrentIngestionService.submitTimeCard(hourlyEmployeeIds.get(i % 10), monday.plusDays(i % 5), 8.0));
+            futureList.add(concurrentIngestionService.submitSalesReceipt(commissionedEmployeeIds.get(i % 10), monday, 10));
+            futureList.add(concurrentIngestionService.submitServiceCharge(commissionedEmployeeIds.get(i % 10), monday, 5));
+        }
+        CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(1000, timeCardRepository.size());
+        LocalDate periodEnd = PayAccumulatorRepository.periodEndOf(monday);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(800.0, payAccumulatorRepository.getRegularHours(hourlyEmployeeIds.get(i), periodEnd));
+            assertEquals(1000, payAccumulatorRepository.getSalesAmount(commissionedEmployeeIds.get(i), periodEnd));
+            assertEquals(100, salesReceiptRepository.getListOfSalesReceiptById(commissionedEmployeeIds.get(i), monday).size());
+            assertEquals(100, serviceChargeRepository.findByEmployeeId(commissionedEmployeeIds.get(i)).size());
+            assertEquals(100 * 5 * 100, serviceChargeRepository.getDeductionCents(commissionedEmployeeIds.get(i), YearMonth.from(monday)));
+        }
+    }
+
+    @Test
+    public void givenNonExistEmployeeWhenExecuteSubmitTimeCardThenFailFuture() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+
+        // when
+        CompletableFuture<Void> actual = concurrentIngestionService.submitTimeCard(employeeId, LocalDate.of(2020, 1, 13), 8.0);
+
+        // then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> actual.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ResourceNotFoundException);
+        assertEquals(0, timeCardRepository.size());
+    }
+
+    private UUID addEmployee(PaymentType paymentType) {
+        UUID employeeId = UUID.randomUUID();
+        employeeRepository.addEmployee(Employee.builder()
+                .id(employeeId)
+                .name("Elsa")
+                .address("Berlin")
+                .paymentType(paymentType)
+                .hourlyRateCents(1000)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(10000)
+                .build());
+        return employeeId;
+    }
+}
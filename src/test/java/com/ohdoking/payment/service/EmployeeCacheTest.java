@@ -0,0 +1,148 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.metrics.InMemoryMetricsRegistry;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class EmployeeCacheTest {
+
+    EmployeeRepository employeeRepository = new EmployeeRepository();
+
+    @Test
+    public void givenCachedEmployeeWhenExecuteGetEmployeeThenCountHitAndMiss() {
+
+        // given
+        EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+        Employee elsa = hourlyEmployee("Elsa");
+        employeeRepository.addEmployee(elsa);
+
+        // when
+        Employee first = employeeCache.getEmployee(elsa.getId());
+        Employee second = employeeCache.getEmployee(elsa.getId());
+
+        // then
+        assertSame(elsa, first);
+        assertSame(elsa, second);
+        assertEquals(1, employeeCache.getMissCount());
+        assertEquals(1, employeeCache.getHitCount());
+        assertNull(employeeCache.getEmployee(UUID.randomUUID()));
+        assertEquals(2, employeeCache.getMissCount());
+        assertEquals(1, employeeCache.size());
+    }
+
+    @Test
+    public void givenCachedAndUncachedEmployeesWhenExecuteGetEmployeesThenLoadMissesOnce() {
+
+        // given
+        EmployeeRepository spyRepository = spy(employeeRepository);
+        EmployeeCache employeeCache = new EmployeeCache(spyRepository);
+        Employee elsa = hourlyEmployee("Elsa");
+        Employee kenny = hourlyEmployee("Kenny");
+        Employee anna = hourlyEmployee("Anna");
+        employeeRepository.addEmployee(elsa);
+        employeeRepository.addEmployee(kenny);
+        employeeRepository.addEmployee(anna);
+        employeeCache.getEmployee(elsa.getId());
+        UUID unknownId = UUID.randomUUID();
+
+        // when
+        Map<UUID, Employee> employeeMap = employeeCache.getEmployees(
+                new HashSet<>(Arrays.asList(elsa.getId(), kenny.getId(), anna.getId(), unknownId)));
+
+        // then
+        assertEquals(3, employeeMap.size());
+        assertSame(kenny, employeeMap.get(kenny.getId()));
+        assertSame(anna, employeeMap.get(anna.getId()));
+        verify(spyRepository).getEmployees(new HashSet<>(Arrays.asList(kenny.getId(), anna.getId(), unknownId)));
+        assertEquals(1, employeeCache.getHitCount());
+        assertEquals(4, employeeCache.getMissCount());
+        assertSame(kenny, employeeCache.getEmployee(kenny.getId()));
+        assertEquals(2, employeeCache.getHitCount());
+    }
+
+    @Test
+    public void givenDeletedEmployeeWhenExecuteInvalidateThenDontReturnIt() {
+
+        // given
+        EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+        Employee elsa = hourlyEmployee("Elsa");
+        employeeRepository.addEmployee(elsa);
+        employeeCache.getEmployee(elsa.getId());
+
+        // when
+        employeeRepository.deleteEmployee(elsa.getId());
+        employeeCache.invalidate(elsa.getId());
+
+        // then
+        assertNull(employeeCache.getEmployee(elsa.getId()));
+    }
+
+    @Test
+    public void givenMoreEmployeesThanMaximumSizeWhenExecuteGetEmployeeThenEvictLeastRecentlyUsed() {
+
+        // given
+        // 16 segments of 1 employee
+        EmployeeCache employeeCache = new EmployeeCache(employeeRepository, 16);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            Employee employee = hourlyEmployee("Elsa" + i);
+            employeeRepository.addEmployee(employee);
+            employeeCache.getEmployee(employee.getId());
+        }
+
+        // then
+        assertTrue(employeeCache.size() <= 16);
+        assertEquals(100 - employeeCache.size(), employeeCache.getEvictionCount());
+    }
+
+    @Test
+    public void givenMetricsRegistryWhenExecuteGetEmployeeAndGetEmployeesThenCountHitMissAndEviction() {
+
+        // given
+        // 16 segments of 1 employee
+        EmployeeCache employeeCache = new EmployeeCache(employeeRepository, 16);
+        InMemoryMetricsRegistry metricsRegistry = new InMemoryMetricsRegistry();
+        employeeCache.setMetricsRegistry(metricsRegistry);
+        Employee elsa = hourlyEmployee("Elsa");
+        employeeRepository.addEmployee(elsa);
+
+        // when
+        employeeCache.getEmployee(elsa.getId());
+        employeeCache.getEmployees(new HashSet<>(Arrays.asList(elsa.getId(), UUID.randomUUID())));
+        for (int i = 0; i < 100; i++) {
+            Employee employee = hourlyEmployee("Kenny" + i);
+            employeeRepository.addEmployee(employee);
+            employeeCache.getEmployee(employee.getId());
+        }
+
+        // then
+        assertEquals(employeeCache.getHitCount(), metricsRegistry.getCount("employeeCache.hit"));
+        assertEquals(employeeCache.getMissCount(), metricsRegistry.getCount("employeeCache.miss"));
+        assertEquals(employeeCache.getEvictionCount(), metricsRegistry.getCount("employeeCache.eviction"));
+        assertEquals(1, metricsRegistry.getCount("employeeCache.hit"));
+        assertEquals(102, metricsRegistry.getCount("employeeCache.miss"));
+        assertEquals(101 - employeeCache.size(), metricsRegistry.getCount("employeeCache.eviction"));
+    }
+
+    private Employee hourlyEmployee(String name) {
+        return Employee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address("Berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .build();
+    }
+}
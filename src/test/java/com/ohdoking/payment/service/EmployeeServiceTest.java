@@ -28,6 +28,9 @@ public class EmployeeServiceTest {
     @Mock
     EmployeeRepository employeeRepository;
 
+    @Mock
+    EmployeeCache employeeCache;
+
     /**
      * usecase 1
      * <p>
@@ -56,6 +59,7 @@ public class EmployeeServiceTest {
         // then
 
         BDDMockito.verify(employeeRepository).addEmployee(any(Employee.class));
+        BDDMockito.verify(employeeCache).invalidate(any(UUID.class));
 
     }
 
@@ -137,6 +141,7 @@ public class EmployeeServiceTest {
 
         // then
         BDDMockito.verify(employeeRepository).deleteEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).invalidate(id);
 
     }
 
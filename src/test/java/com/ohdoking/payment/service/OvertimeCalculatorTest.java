@@ -0,0 +1,39 @@
+package com.ohdoking.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OvertimeCalculatorTest {
+
+    @Test
+    public void givenHoursOfEveryBlockWhenExecuteGetGrossPayCentsThenPayPremiumPerBlock() {
+
+        // then
+        // 10.00 per hour
+        assertEquals(6000, OvertimeCalculator.getGrossPayCents(1000, 6.0));
+        assertEquals(8000, OvertimeCalculator.getGrossPayCents(1000, 8.0));
+        // 8 * 10 + 2 * 15
+        assertEquals(11000, OvertimeCalculator.getGrossPayCents(1000, 10.0));
+        // 8 * 10 + 8 * 15 + 2 * 22.5
+        assertEquals(24500, OvertimeCalculator.getGrossPayCents(1000, 18.0));
+    }
+
+    @Test
+    public void givenHoursOfPeriodWhenExecuteGetGrossPayCentsThenSumEveryDay() {
+
+        // given
+        double[] hours = {0.0, 6.0, 8.0, 10.0, 18.0, 7.5, 0.0};
+
+        // when
+        long actual = OvertimeCalculator.getGrossPayCents(1000, hours, 1, 6);
+
+        // then
+        long expected = 0;
+        for (int i = 1; i < 6; i++) {
+            expected += OvertimeCalculator.getGrossPayCents(1000, hours[i]);
+        }
+        assertEquals(expected, actual);
+        assertEquals(6000 + 8000 + 11000 + 24500 + 7500, actual);
+    }
+}
@@ -0,0 +1,184 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.exception.PartitionException;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaydaySummary;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import com.ohdoking.payment.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedPaydayServiceTest {
+
+    @TempDir
+    Path directory;
+
+    EmployeeRepository employeeRepository = new EmployeeRepository();
+    PayAccumulatorRepository payAccumulatorRepository = new PayAccumulatorRepository();
+    EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+
+    // last weekday of month
+    LocalDate payday = LocalDate.of(2020, 4, 30);
+
+    Function<PaymentRepository, PaymentService> paymentServiceFactory = paymentServiceFactoryOf(employeeRepository, employeeCache);
+
+    @Test
+    public void givenEveryPartitionRunWhenExecuteMergeThenPayEveryEmployeeOnce() {
+
+        // given
+        Set<UUID> employeeIds = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            employeeIds.add(addEmployee(100000));
+        }
+        PartitionedPaydayService partitionedPaydayService = new PartitionedPaydayService(directory.resolve("partitions"), 4);
+        long partitionPaymentCount = 0;
+        for (int partition = 0; partition < 4; partition++) {
+            partitionPaymentCount += partitionedPaydayService.runPartition(payday, partition, paymentServiceFactory).getPaymentCount();
+        }
+
+        // when
+        Set<UUID> paidEmployeeIds = new HashSet<>();
+        PaydaySummary actual;
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory.resolve("ledger"))) {
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            actual = partitionedPaydayService.merge(payday, paymentRepository);
+            // merging again doesn't pay twice
+            partitionedPaydayService.merge(payday, paymentRepository);
+            paymentRepository.forEachPayment(payment -> assertTrue(paidEmployeeIds.add(payment.getEmployeeId())));
+        }
+
+        // then
+        assertEquals(50, partitionPaymentCount);
+        assertEquals(50, actual.getPaymentCount());
+        assertEquals(50 * 100000, actual.getAmountCents());
+        assertEquals(employeeIds, paidEmployeeIds);
+        assertTrue(Files.exists(directory.resolve("partitions").resolve(payday.toString()).resolve("summary.properties")));
+    }
+
+    @Test
+    public void givenPaidPeriodsInAccumulatorWhenExecuteMergeThenRemovePaidPeriods() {
+
+        // given
+        UUID employeeId = addEmployee(100000);
+        LocalDate paidDate = payday.minusWeeks(3);
+        payAccumulatorRepository.addHours(employeeId, paidDate, 8, 0);
+        payAccumulatorRepository.addHours(employeeId, payday, 8, 0);
+        PartitionedPaydayService partitionedPaydayService = new PartitionedPaydayService(directory.resolve("partitions"), 2);
+        for (int partition = 0; partition < 2; partition++) {
+            partitionedPaydayService.runPartition(payday, partition, paymentServiceFactory);
+        }
+        // partitions leave the periods to the merge
+        assertEquals(8, payAccumulatorRepository.getRegularHours(employeeId, PayAccumulatorRepository.periodEndOf(paidDate)));
+
+        // when
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory.resolve("ledger"))) {
+            partitionedPaydayService.merge(payday, new PaymentRepository(paymentLedger), payAccumulatorRepository);
+        }
+
+        // then
+        assertEquals(0, payAccumulatorRepository.getRegularHours(employeeId, PayAccumulatorRepository.periodEndOf(paidDate)));
+        assertEquals(8, payAccumulatorRepository.getRegularHours(employeeId, PayAccumulatorRepository.periodEndOf(payday)));
+    }
+
+    @Test
+    public void givenWorkersLoadingSharedRepositoriesReadOnlyWhenExecuteRunPartitionThenPayEveryEmployeeOnce() {
+
+        // given
+        Path repositoryDirectory = directory.resolve("repositories");
+        EmployeeRepository coordinatorEmployeeRepository = new EmployeeRepository();
+        Set<UUID> employeeIds = new HashSet<>();
+        try (RepositoryPersistence persistence = new RepositoryPersistence(repositoryDirectory, coordinatorEmployeeRepository)) {
+            persistence.open();
+            for (int i = 0; i < 20; i++) {
+                employeeIds.add(addEmployee(coordinatorEmployeeRepository, 100000));
+            }
+        }
+        PartitionedPaydayService partitionedPaydayService = new PartitionedPaydayService(directory.resolve("partitions"), 3);
+
+        // when
+        for (int partition = 0; partition < 3; partition++) {
+            // every worker has its own repositories, loaded from the same directory
+            EmployeeRepository workerEmployeeRepository = new EmployeeRepository();
+            new RepositoryPersistence(repositoryDirectory, workerEmployeeRepository).openReadOnly();
+            partitionedPaydayService.runPartition(payday, partition,
+                    paymentServiceFactoryOf(workerEmployeeRepository, new EmployeeCache(workerEmployeeRepository)));
+        }
+
+        // then
+        Set<UUID> paidEmployeeIds = new HashSet<>();
+        try (PaymentLedger paymentLedger = new PaymentLedger(directory.resolve("ledger"))) {
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            assertEquals(20, partitionedPaydayService.merge(payday, paymentRepository).getPaymentCount());
+            paymentRepository.forEachPayment(payment -> assertTrue(paidEmployeeIds.add(payment.getEmployeeId())));
+        }
+        assertEquals(employeeIds, paidEmployeeIds);
+    }
+
+    @Test
+    public void givenClaimedPartitionWhenExecuteRunPartitionThenThrowPartitionException() throws Exception {
+
+        // given
+        addEmployee(100000);
+        PartitionedPaydayService partitionedPaydayService = new PartitionedPaydayService(directory, 2);
+        Path partitionDirectory = directory.resolve(payday.toString()).resolve("partition-0001");
+        Files.createDirectories(partitionDirectory);
+
+        try (FileChannel claim = FileChannel.open(partitionDirectory.resolve("claim.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = claim.lock()) {
+
+            // when
+            PartitionException actual = assertThrows(PartitionException.class,
+                    () -> partitionedPaydayService.runPartition(payday, 1, paymentServiceFactory));
+
+            // then
+            assertEquals(String.format("partition 1 of %s is claimed by another worker", payday), actual.getMessage());
+        }
+
+        // and merge refuses unfinished partitions
+        PartitionException actual = assertThrows(PartitionException.class,
+                () -> partitionedPaydayService.merge(payday, null));
+        assertEquals(String.format("partition 0 of %s isn't finished", payday), actual.getMessage());
+    }
+
+    private Function<PaymentRepository, PaymentService> paymentServiceFactoryOf(EmployeeRepository employeeRepository, EmployeeCache employeeCache) {
+        return paymentRepository -> new PaymentService(
+                paymentRepository,
+                new EmployeeService(employeeRepository, employeeCache),
+                new ServiceChargeService(employeeCache, new ServiceChargeRepository()),
+                new TimeCardService(employeeCache, new TimeCardRepository(), payAccumulatorRepository),
+                new SalesReceiptService(employeeCache, new SalesReceiptRepository(), payAccumulatorRepository),
+                payAccumulatorRepository,
+                new PayCalendar());
+    }
+
+    private UUID addEmployee(long monthlyPayCents) {
+        return addEmployee(employeeRepository, monthlyPayCents);
+    }
+
+    private UUID addEmployee(EmployeeRepository employeeRepository, long monthlyPayCents) {
+        UUID employeeId = UUID.randomUUID();
+        employeeRepository.addEmployee(Employee.builder()
+                .id(employeeId)
+                .name("Dokeun")
+                .address("Busan")
+                .paymentType(PaymentType.S)
+                .monthlyPayCents(monthlyPayCents)
+                .paymentWay(PaymentWay.MAIL)
+                .build());
+        return employeeId;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayCalendarTest {
+
+    PayCalendar payCalendar = new PayCalendar();
+
+    @Test
+    public void givenFridayWhenExecuteIsPaymentDateThenHourlyTypeIsPaid() {
+
+        // given
+        LocalDate friday = LocalDate.of(2020, 1, 17);
+        LocalDate thursday = LocalDate.of(2020, 1, 16);
+
+        // when
+        boolean actual = payCalendar.isPaymentDate(PaymentType.H, friday);
+
+        // then
+        assertTrue(actual);
+        assertFalse(payCalendar.isPaymentDate(PaymentType.H, thursday));
+    }
+
+    @Test
+    public void givenLastWeekdayOfMonthWhenExecuteIsPaymentDateThenSalaryTypeIsPaid() {
+
+        // then
+        // 2020-05-31 is sunday
+        assertTrue(payCalendar.isPaymentDate(PaymentType.S, LocalDate.of(2020, 5, 29)));
+        assertFalse(payCalendar.isPaymentDate(PaymentType.S, LocalDate.of(2020, 5, 31)));
+        // 2020-02-29 is saturday of leap year
+        assertTrue(payCalendar.isPaymentDate(PaymentType.S, LocalDate.of(2020, 2, 28)));
+        assertTrue(payCalendar.isPaymentDate(PaymentType.S, LocalDate.of(2020, 12, 31)));
+        assertFalse(payCalendar.isPaymentDate(PaymentType.S, LocalDate.of(2020, 12, 30)));
+    }
+
+    @Test
+    public void givenFridaysWhenExecuteGetPaymentTypesDueOnThenCommissionTypeIsPaidEveryOtherFriday() {
+
+        // when
+        Set<PaymentType> actual = payCalendar.getPaymentTypesDueOn(LocalDate.of(2020, 1, 10));
+
+        // then
+        assertEquals(Set.of(PaymentType.H, PaymentType.C), actual);
+        assertEquals(Set.of(PaymentType.H), payCalendar.getPaymentTypesDueOn(LocalDate.of(2020, 1, 17)));
+        assertEquals(Set.of(PaymentType.H, PaymentType.C), payCalendar.getPaymentTypesDueOn(LocalDate.of(2020, 1, 24)));
+        // last weekday of january is friday too
+        assertEquals(Set.of(PaymentType.H, PaymentType.S), payCalendar.getPaymentTypesDueOn(LocalDate.of(2020, 1, 31)));
+        // the two weeks rhythm goes on over the end of year
+        assertTrue(payCalendar.isPaymentDate(PaymentType.C, LocalDate.of(2019, 12, 27)));
+        assertTrue(payCalendar.getPaymentTypesDueOn(LocalDate.of(2020, 1, 15)).isEmpty());
+    }
+
+    @Test
+    public void givenNotFridayWhenCreatePayCalendarThenThrowIllegalArgumentException() {
+
+        // when
+        IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, () -> new PayCalendar(LocalDate.of(2020, 1, 15)));
+
+        // then
+        assertEquals("commissionAnchor should be friday", actual.getMessage());
+    }
+
+    @Test
+    public void givenPaymentDatesOfMonthWhenExecuteIsFirstPaymentDateOfMonthThenOnlyFirstOneIs() {
+
+        // then
+        assertTrue(payCalendar.isFirstPaymentDateOfMonth(PaymentType.H, LocalDate.of(2020, 1, 3)));
+        assertFalse(payCalendar.isFirstPaymentDateOfMonth(PaymentType.H, LocalDate.of(2020, 1, 10)));
+        assertTrue(payCalendar.isFirstPaymentDateOfMonth(PaymentType.C, LocalDate.of(2020, 1, 10)));
+        assertFalse(payCalendar.isFirstPaymentDateOfMonth(PaymentType.C, LocalDate.of(2020, 1, 24)));
+        assertTrue(payCalendar.isFirstPaymentDateOfMonth(PaymentType.S, LocalDate.of(2020, 1, 31)));
+        assertFalse(payCalendar.isFirstPaymentDateOfMonth(PaymentType.H, LocalDate.of(2020, 1, 2)));
+    }
+}
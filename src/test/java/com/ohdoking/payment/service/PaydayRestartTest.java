@@ -0,0 +1,116 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import com.ohdoking.payment.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PaydayRestartTest {
+
+    @TempDir
+    Path directory;
+
+    UUID elsaEmployeeId = UUID.randomUUID();
+    UUID kennyEmployeeId = UUID.randomUUID();
+
+    // friday, payment date of hourly and commission type
+    LocalDate payday = LocalDate.of(2020, 1, 10);
+
+    @Test
+    public void givenTimeCardsAndSalesReceiptsRestoredWhenExecutePaydayThenPayHoursAndCommission() {
+
+        // given
+        Payroll payroll = new Payroll();
+        try (RepositoryPersistence persistence = payroll.persistence()) {
+            persistence.open();
+            payroll.employeeRepository.addEmployee(employee(elsaEmployeeId, PaymentType.H));
+            payroll.employeeRepository.addEmployee(employee(kennyEmployeeId, PaymentType.C));
+            // already paid in december
+            payroll.timeCardService.addTimeCard(elsaEmployeeId, LocalDate.of(2019, 12, 23), 8.0);
+            payroll.timeCardService.addTimeCard(elsaEmployeeId, LocalDate.of(2020, 1, 6), 8.0);
+
+            persistence.snapshot();
+
+            // log tail after the snapshot
+            payroll.timeCardService.addTimeCard(elsaEmployeeId, LocalDate.of(2020, 1, 7), 10.0);
+            payroll.salesReceiptService.addSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 7), 250);
+        }
+
+        // when
+        Payroll restored = new Payroll();
+        Map<UUID, Long> actual = new HashMap<>();
+        try (RepositoryPersistence persistence = restored.persistence();
+             PaymentLedger paymentLedger = new PaymentLedger(directory.resolve("ledger"))) {
+            persistence.open();
+            // rebuilding what is already restored changes nothing
+            restored.timeCardService.rebuildPayAccumulator();
+            restored.salesReceiptService.rebuildPayAccumulator();
+            assertEquals(8.0, restored.payAccumulatorRepository.getRegularHours(elsaEmployeeId, LocalDate.of(2019, 12, 27)));
+
+            PaymentRepository paymentRepository = new PaymentRepository(paymentLedger);
+            restored.paymentService(paymentRepository).payday(payday);
+            paymentRepository.forEachPayment(payment -> actual.put(payment.getEmployeeId(), payment.getSalaryAmountCents()));
+        }
+
+        // then
+        // 8 hours and 8 hours plus 2 overtime hours at 1.5 times 10.00
+        assertEquals(8000 + 8000 + 3000, actual.get(elsaEmployeeId));
+        // monthly pay plus 10 % of 250.00
+        assertEquals(100000 + 2500, actual.get(kennyEmployeeId));
+        // paid periods are dropped
+        assertEquals(0.0, restored.payAccumulatorRepository.getRegularHours(elsaEmployeeId, LocalDate.of(2019, 12, 27)));
+    }
+
+    private Employee employee(UUID id, PaymentType paymentType) {
+        return Employee.builder()
+                .id(id)
+                .name(id.toString())
+                .address("Berlin")
+                .paymentType(paymentType)
+                .hourlyRateCents(1000)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
+                .paymentWay(PaymentWay.DIRECT)
+                .build();
+    }
+
+    /**
+     * repositories and services of one process, created before the repositories are restored
+     */
+    private class Payroll {
+        final EmployeeRepository employeeRepository = new EmployeeRepository();
+        final TimeCardRepository timeCardRepository = new TimeCardRepository();
+        final SalesReceiptRepository salesReceiptRepository = new SalesReceiptRepository();
+        final ServiceChargeRepository serviceChargeRepository = new ServiceChargeRepository();
+        final PayAccumulatorRepository payAccumulatorRepository = new PayAccumulatorRepository();
+        final EmployeeCache employeeCache = new EmployeeCache(employeeRepository);
+        final TimeCardService timeCardService = new TimeCardService(employeeCache, timeCardRepository, payAccumulatorRepository);
+        final SalesReceiptService salesReceiptService = new SalesReceiptService(employeeCache, salesReceiptRepository, payAccumulatorRepository);
+
+        RepositoryPersistence persistence() {
+            return new RepositoryPersistence(directory.resolve("repositories"),
+                    employeeRepository, timeCardRepository, salesReceiptRepository, serviceChargeRepository);
+        }
+
+        PaymentService paymentService(PaymentRepository paymentRepository) {
+            return new PaymentService(
+                    paymentRepository,
+                    new EmployeeService(employeeRepository, employeeCache),
+                    new ServiceChargeService(employeeCache, serviceChargeRepository),
+                    timeCardService,
+                    salesReceiptService,
+                    payAccumulatorRepository,
+                    new PayCalendar());
+        }
+    }
+}
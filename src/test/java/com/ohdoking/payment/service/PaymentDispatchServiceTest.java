@@ -0,0 +1,150 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentDispatchServiceTest {
+
+    @InjectMocks
+    PaymentDispatchService paymentDispatchService;
+
+    @Mock
+    PaymentRepository paymentRepository;
+
+    @Mock
+    EmployeeService employeeService;
+
+    @TempDir
+    Path directory;
+
+    LocalDate payday = LocalDate.of(2020, 1, 31);
+
+    @Test
+    public void givenPaymentsOfEveryWayWhenExecuteDispatchThenRouteEachToSinkOfItsWay() {
+
+        // given
+        Employee elsa = employee("Elsa", PaymentWay.DIRECT);
+        Employee kenny = employee("Kenny", PaymentWay.MAIL);
+        Employee dokeun = employee("Dokeun", PaymentWay.LEAVE_SALARY_TO_MANAGER);
+        List<Payment> paymentList = Arrays.asList(
+                payment(elsa, 100000, payday),
+                payment(kenny, 50050, payday),
+                payment(dokeun, 1200, payday),
+                payment(elsa, 100000, payday.minusWeeks(1)),
+                payment(elsa, 25, payday)
+        );
+        givenPayments(paymentList);
+        given(employeeService.getEmployee(any(UUID.class))).willAnswer(invocation -> {
+            UUID id = invocation.getArgument(0);
+            return Arrays.asList(elsa, kenny, dokeun).stream().filter(e -> e.getId().equals(id)).findFirst().orElse(null);
+        });
+
+        Map<PaymentWay, PaymentSink> sinkMap = new EnumMap<>(PaymentWay.class);
+        Map<PaymentWay, List<Payment>> written = new EnumMap<>(PaymentWay.class);
+        for (PaymentWay paymentWay : PaymentWay.values()) {
+            List<Payment> list = new ArrayList<>();
+            written.put(paymentWay, list);
+            sinkMap.put(paymentWay, new PaymentSink() {
+                @Override
+                public void write(Payment payment, Employee employee) {
+                    list.add(payment);
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+
+        // when
+        DispatchReport actual = paymentDispatchService.dispatch(payday, sinkMap);
+
+        // then
+        assertEquals(2, written.get(PaymentWay.DIRECT).size());
+        assertEquals(1, written.get(PaymentWay.MAIL).size());
+        assertEquals(1, written.get(PaymentWay.LEAVE_SALARY_TO_MANAGER).size());
+        assertEquals(2L, actual.getPaymentCountByWay().get(PaymentWay.DIRECT));
+        assertEquals(100025L, actual.getAmountCentsByWay().get(PaymentWay.DIRECT));
+        assertEquals(0, actual.getSkippedCount());
+    }
+
+    @Test
+    public void givenPaymentsWhenExecuteDispatchToDirectoryThenWriteFilePerWay() throws IOException {
+
+        // given
+        Employee elsa = employee("Elsa", PaymentWay.DIRECT);
+        Employee kenny = employee("Kenny, Jr.", PaymentWay.MAIL);
+        Payment elsaPayment = payment(elsa, 100000, payday);
+        Payment kennyPayment = payment(kenny, 50005, payday);
+        givenPayments(Arrays.asList(elsaPayment, kennyPayment, payment(employee("Deleted", PaymentWay.MAIL), 100, payday)));
+        given(employeeService.getEmployee(elsa.getId())).willReturn(elsa);
+        given(employeeService.getEmployee(kenny.getId())).willReturn(kenny);
+
+        // when
+        DispatchReport actual = paymentDispatchService.dispatchToDirectory(payday, directory);
+
+        // then
+        assertEquals(1, actual.getSkippedCount());
+        assertEquals(Arrays.asList(
+                "paymentId,employeeId,name,amount,date",
+                elsaPayment.getId() + "," + elsa.getId() + ",Elsa,1000.00,2020-01-31"
+        ), Files.readAllLines(directory.resolve("direct-deposit-2020-01-31.csv"), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(
+                "paymentId,name,address,amount,date",
+                kennyPayment.getId() + ",\"Kenny, Jr.\",Berlin,500.05,2020-01-31"
+        ), Files.readAllLines(directory.resolve("checks-2020-01-31.csv"), StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList("paymentId,employeeId,name,amount"),
+                Files.readAllLines(directory.resolve("paymaster-2020-01-31.csv"), StandardCharsets.UTF_8));
+    }
+
+    private void givenPayments(List<Payment> paymentList) {
+        willAnswer(invocation -> {
+            LocalDate paymentDate = invocation.getArgument(0);
+            Consumer<Payment> consumer = invocation.getArgument(1);
+            paymentList.stream().filter(payment -> paymentDate.equals(payment.getPaymentDate())).forEach(consumer);
+            return null;
+        }).given(paymentRepository).forEachPaymentOn(any(LocalDate.class), any());
+    }
+
+    private Employee employee(String name, PaymentWay paymentWay) {
+        return Employee.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address("Berlin")
+                .paymentType(PaymentType.S)
+                .monthlyPayCents(100000)
+                .paymentWay(paymentWay)
+                .build();
+    }
+
+    private Payment payment(Employee employee, long salaryAmountCents, LocalDate paymentDate) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employee.getId())
+                .salaryAmountCents(salaryAmountCents)
+                .paymentType(employee.getPaymentType())
+                .paymentWay(employee.getPaymentWay())
+                .paymentDate(paymentDate)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.Payment;
+import com.ohdoking.payment.model.PaymentTotals;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.PaymentWay;
+import com.ohdoking.payment.repository.PaymentLedger;
+import com.ohdoking.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaymentHistoryServiceTest {
+
+    @TempDir
+    Path directory;
+
+    PaymentLedger paymentLedger;
+    PaymentRepository paymentRepository;
+    PaymentHistoryService paymentHistoryService;
+
+    UUID dokeunEmployeeId = UUID.randomUUID();
+    UUID elsaEmployeeId = UUID.randomUUID();
+
+    @BeforeEach
+    public void setUp() {
+        paymentLedger = new PaymentLedger(directory, 4);
+        paymentRepository = new PaymentRepository(paymentLedger);
+        paymentRepository.savePayments(List.of(
+                payment(dokeunEmployeeId, PaymentType.S, PaymentWay.MAIL, 100000, LocalDate.of(2020, 1, 31)),
+                payment(elsaEmployeeId, PaymentType.H, PaymentWay.DIRECT, 30000, LocalDate.of(2020, 1, 31)),
+                payment(dokeunEmployeeId, PaymentType.S, PaymentWay.MAIL, 100000, LocalDate.of(2020, 2, 28)),
+                payment(dokeunEmployeeId, PaymentType.S, PaymentWay.MAIL, 200000, LocalDate.of(2020, 4, 30))
+        ));
+        paymentRepository.savePayments(List.of(
+                payment(dokeunEmployeeId, PaymentType.S, PaymentWay.MAIL, 50000, LocalDate.of(2021, 1, 29))
+        ));
+        paymentHistoryService = new PaymentHistoryService(paymentRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        paymentLedger.close();
+    }
+
+    @Test
+    public void givenPaymentsOfManyDatesWhenGetPaymentHistoryThenReturnPaymentsInRangeInDateOrder() {
+
+        // when
+        List<Payment> actual = paymentHistoryService.getPaymentHistory(dokeunEmployeeId, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 4, 30));
+
+        // then
+        assertEquals(List.of(LocalDate.of(2020, 1, 31), LocalDate.of(2020, 2, 28), LocalDate.of(2020, 4, 30)),
+                actual.stream().map(Payment::getPaymentDate).collect(Collectors.toList()));
+        assertTrue(paymentHistoryService.getPaymentHistory(UUID.randomUUID(), LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)).isEmpty());
+    }
+
+    @Test
+    public void givenPaymentsOfManyDatesWhenGetYearAndQuarterToDateThenSumPaymentsUpToDate() {
+
+        // then
+        assertEquals(200000, paymentHistoryService.getYearToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 3, 15)));
+        assertEquals(400000, paymentHistoryService.getYearToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 12, 31)));
+        assertEquals(50000, paymentHistoryService.getYearToDateGrossCents(dokeunEmployeeId, LocalDate.of(2021, 2, 1)));
+        assertEquals(0, paymentHistoryService.getYearToDateGrossCents(dokeunEmployeeId, LocalDate.of(2019, 12, 31)));
+        assertEquals(0, paymentHistoryService.getQuarterToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 4, 29)));
+        assertEquals(200000, paymentHistoryService.getQuarterToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 4, 30)));
+        assertEquals(200000, paymentHistoryService.getQuarterToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 3, 31)));
+
+        // and the aggregates are rebuilt from the ledger
+        assertEquals(400000, new PaymentRepository(paymentLedger).getYearToDateGrossCents(dokeunEmployeeId, LocalDate.of(2020, 12, 31)));
+    }
+
+    @Test
+    public void givenDeductedPaymentsOutOfDateOrderWhenGetYearAndQuarterToDateThenSumGross() {
+
+        // given
+        UUID kennyEmployeeId = UUID.randomUUID();
+        Payment deducted = payment(kennyEmployeeId, PaymentType.H, PaymentWay.DIRECT, 90000, LocalDate.of(2020, 3, 31));
+        deducted.setDeductionCents(10000);
+        paymentRepository.savePayments(List.of(deducted));
+        paymentRepository.savePayments(List.of(
+                payment(kennyEmployeeId, PaymentType.H, PaymentWay.DIRECT, 100000, LocalDate.of(2020, 1, 31))));
+
+        // when
+        long actual = paymentHistoryService.getYearToDateGrossCents(kennyEmployeeId, LocalDate.of(2020, 3, 31));
+
+        // then
+        assertEquals(200000, actual);
+        assertEquals(100000, paymentHistoryService.getQuarterToDateGrossCents(kennyEmployeeId, LocalDate.of(2020, 3, 30)));
+        List<Payment> history = new PaymentHistoryService(new PaymentRepository(paymentLedger))
+                .getPaymentHistory(kennyEmployeeId, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+        assertEquals(List.of(0L, 10000L), history.stream().map(Payment::getDeductionCents).collect(Collectors.toList()));
+        assertEquals(90000, paymentHistoryService.getTotals(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 31)).getAmountCents());
+    }
+
+    @Test
+    public void givenPaymentsOfManyTypesAndWaysWhenGetTotalsThenSumByTypeAndWay() {
+
+        // when
+        PaymentTotals actual = paymentHistoryService.getTotals(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 2, 28));
+
+        // then
+        assertEquals(3, actual.getPaymentCount());
+        assertEquals(230000, actual.getAmountCents());
+        assertEquals(200000, actual.getAmountCentsByType().get(PaymentType.S));
+        assertEquals(30000, actual.getAmountCentsByType().get(PaymentType.H));
+        assertEquals(0, actual.getAmountCentsByType().get(PaymentType.C));
+        assertEquals(200000, actual.getAmountCentsByWay().get(PaymentWay.MAIL));
+        assertEquals(30000, actual.getAmountCentsByWay().get(PaymentWay.DIRECT));
+    }
+
+    private static Payment payment(UUID employeeId, PaymentType paymentType, PaymentWay paymentWay, long salaryAmountCents, LocalDate paymentDate) {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .employeeId(employeeId)
+                .salaryAmountCents(salaryAmountCents)
+                .paymentType(paymentType)
+                .paymentWay(paymentWay)
+                .paymentDate(paymentDate)
+                .build();
+    }
+}
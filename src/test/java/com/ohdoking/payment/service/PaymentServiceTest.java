@@ -1,21 +1,42 @@
 package com.ohdoking.payment.service;
 
+import com.ohdoking.payment.metrics.InMemoryMetricsRegistry;
 import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import com.ohdoking.payment.repository.PaydayCheckpointRepository;
 import com.ohdoking.payment.repository.PaymentRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -40,6 +61,12 @@ public class PaymentServiceTest {
     @Mock
     SalesReceiptService salesReceiptService;
 
+    @Mock
+    PayAccumulatorRepository payAccumulatorRepository;
+
+    @Spy
+    PayCalendar payCalendar = new PayCalendar();
+
     /**
      * usecase 7
      * <p>
@@ -68,65 +95,45 @@ public class PaymentServiceTest {
     public void givenPaymentTypeIsHourlyTypeWhenExecutePaydayThenPaySalary() {
 
         // given
-        LocalDate now = LocalDate.now();
+        // first friday of month that isn't payment date of commission type
+        LocalDate now = LocalDate.of(2020, 1, 3);
 
         UUID elsaEmployeeId = UUID.randomUUID();
 
-        given(employeeService.getListOfEmployee()).willReturn(
-                List.of(
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willReturn(
+                Stream.of(
                         Employee
                                 .builder()
                                 .id(elsaEmployeeId)
                                 .name("Elsa")
                                 .address("Berlin")
                                 .paymentType(PaymentType.H)
-                                .hourlyRate(10.0)
+                                .hourlyRateCents(1000)
                                 .paymentWay(PaymentWay.LEAVE_SALARY_TO_MANAGER)
                                 .build()
                 )
         );
 
-        given(timeCardService.getListOfTimeCardById(any(UUID.class), any(LocalDate.class))).willReturn(
-                List.of(
-                        TimeCard.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(elsaEmployeeId)
-                                .hours(6.0)
-                                .date(LocalDate.now().minus(Period.ofDays(1)))
-                                .build(),
-                        TimeCard.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(elsaEmployeeId)
-                                .hours(6.0)
-                                .date(LocalDate.now().minus(Period.ofDays(2)))
-                                .build(),
-                        TimeCard.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(elsaEmployeeId)
-                                .hours(6.0)
-                                .date(LocalDate.now().minus(Period.ofDays(3)))
-                                .build()
-                )
-        );
+        // 3 days of 6 hours
+        given(payAccumulatorRepository.getRegularHours(any(UUID.class), any(LocalDate.class))).willReturn(18.0);
+        given(payAccumulatorRepository.getOvertimeHours(any(UUID.class), any(LocalDate.class))).willReturn(0.0);
 
-        given(serviceChargeService.findServiceChargeById(any(UUID.class))).willReturn(ServiceCharge.builder()
-                .id(UUID.randomUUID())
-                .employeeId(elsaEmployeeId)
-                .amount(10)
-                .build()
-        );
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(elsaEmployeeId, 1000L));
 
-        willDoNothing().given(paymentRepository).savePaymentt(any(Payment.class));
+        willDoNothing().given(paymentRepository).savePayments(anyList());
 
         // when
         paymentService.payday(now);
 
         // then
-        verify(employeeService).getListOfEmployee();
-        verify(timeCardService).getListOfTimeCardById(any(UUID.class), any(LocalDate.class));
+        verify(employeeService).streamEmployeesByPaymentType(PaymentType.H);
+        verifyNoMoreInteractions(employeeService);
+        verify(payAccumulatorRepository).getRegularHours(any(UUID.class), any(LocalDate.class));
+        verify(payAccumulatorRepository).getOvertimeHours(any(UUID.class), any(LocalDate.class));
+        verifyNoMoreInteractions(timeCardService);
         verifyNoMoreInteractions(salesReceiptService);
-        verify(serviceChargeService).findServiceChargeById(any(UUID.class));
-        verify(paymentRepository).savePaymentt(any(Payment.class));
+        verify(serviceChargeService).getDeductionCentsByIds(anySet(), any(YearMonth.class));
+        verify(paymentRepository).savePayments(anyList());
 
     }
 
@@ -134,113 +141,378 @@ public class PaymentServiceTest {
     public void givenPaymentTypeIsCommissionTypeWhenExecutePaydayThenPaySalary() {
 
         // given
-        LocalDate now = LocalDate.now();
+        // friday that is payment date of commission type and hourly type
+        LocalDate now = LocalDate.of(2020, 1, 10);
 
         UUID kennyEmployeeId = UUID.randomUUID();
 
-        given(employeeService.getListOfEmployee()).willReturn(
-                List.of(
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willReturn(Stream.empty());
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.C)).willReturn(
+                Stream.of(
                         Employee
                                 .builder()
                                 .id(kennyEmployeeId)
                                 .name("Kenny")
                                 .address("NY")
                                 .paymentType(PaymentType.C)
-                                .monthlyPay(1000.0)
-                                .commissionRate(0.01)
+                                .monthlyPayCents(100000)
+                                .commissionRatePpm(10000)
                                 .paymentWay(PaymentWay.DIRECT)
                                 .build()
                 )
         );
 
-        given(salesReceiptService.getListOfSalesReceiptById(any(UUID.class), any(LocalDate.class))).willReturn(
-                List.of(
-                        SaleReceipt.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(kennyEmployeeId)
-                                .amount(100)
-                                .date(LocalDate.now().minus(Period.ofDays(1)))
-                                .build(),
-                        SaleReceipt.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(kennyEmployeeId)
-                                .amount(200)
-                                .date(LocalDate.now().minus(Period.ofDays(2)))
-                                .build(),
-                        SaleReceipt.builder()
-                                .id(UUID.randomUUID())
-                                .employeeId(kennyEmployeeId)
-                                .amount(250)
-                                .date(LocalDate.now().minus(Period.ofDays(3)))
-                                .build()
-                )
-        );
+        // this week 300, last week 250
+        given(payAccumulatorRepository.getSalesAmount(any(UUID.class), any(LocalDate.class))).willReturn(300L, 250L);
 
-        given(serviceChargeService.findServiceChargeById(any(UUID.class))).willReturn(ServiceCharge.builder()
-                .id(UUID.randomUUID())
-                .employeeId(kennyEmployeeId)
-                .amount(10)
-                .build()
-        );
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(kennyEmployeeId, 1000L));
 
-        willDoNothing().given(paymentRepository).savePaymentt(any(Payment.class));
+        willDoNothing().given(paymentRepository).savePayments(anyList());
 
         // then
         paymentService.payday(now);
 
 
         // then
-        verify(employeeService).getListOfEmployee();
+        verify(employeeService).streamEmployeesByPaymentType(PaymentType.H);
+        verify(employeeService).streamEmployeesByPaymentType(PaymentType.C);
+        verifyNoMoreInteractions(employeeService);
         verifyNoMoreInteractions(timeCardService);
-        verify(salesReceiptService).getListOfSalesReceiptById(any(UUID.class), any(LocalDate.class));
-        verify(serviceChargeService).findServiceChargeById(any(UUID.class));
-        verify(paymentRepository).savePaymentt(any(Payment.class));
+        verifyNoMoreInteractions(salesReceiptService);
+        verify(payAccumulatorRepository, times(2)).getSalesAmount(any(UUID.class), any(LocalDate.class));
+        verify(serviceChargeService).getDeductionCentsByIds(anySet(), any(YearMonth.class));
+        verify(paymentRepository).savePayments(anyList());
 
 
     }
 
+    @Test
+    public void givenCommissionOfHalfCentWhenExecutePaydayThenRoundHalfEven() {
+
+        // given
+        // friday that is payment date of commission type and hourly type
+        LocalDate now = LocalDate.of(2020, 1, 10);
+
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            employeeList.add(Employee
+                    .builder()
+                    .id(UUID.randomUUID())
+                    .name("Kenny" + i)
+                    .address("NY")
+                    .paymentType(PaymentType.C)
+                    .monthlyPayCents(100000)
+                    .commissionRatePpm(25000)
+                    .paymentWay(PaymentWay.DIRECT)
+                    .build());
+        }
+
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willReturn(Stream.empty());
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.C)).willReturn(employeeList.stream());
+
+        // 2.5% of 1 is 2.5 cents and 2.5% of 3 is 7.5 cents
+        given(payAccumulatorRepository.getSalesAmount(any(UUID.class), any(LocalDate.class))).willReturn(1L, 0L, 3L, 0L);
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        // when
+        paymentService.payday(now);
+
+        // then
+        ArgumentCaptor<List<Payment>> paymentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).savePayments(paymentCaptor.capture());
+
+        List<Payment> paymentList = paymentCaptor.getValue();
+        assertEquals(100002, paymentList.get(0).getSalaryAmountCents());
+        assertEquals(100008, paymentList.get(1).getSalaryAmountCents());
+    }
+
     @Test
     public void givenPaymentTypeIsSalaryTypeWhenExecutePaydayThenPaySalary() {
 
         // given
-        LocalDate now = LocalDate.now();
+        // last weekday of month
+        LocalDate now = LocalDate.of(2020, 4, 30);
 
         UUID dokeunEmployeeId = UUID.randomUUID();
 
-        given(employeeService.getListOfEmployee()).willReturn(
-                List.of(
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.S)).willReturn(
+                Stream.of(
                         Employee
                                 .builder()
                                 .id(dokeunEmployeeId)
                                 .name("Dokeun")
                                 .address("Busan")
                                 .paymentType(PaymentType.S)
-                                .monthlyPay(10000.0)
+                                .monthlyPayCents(1000000)
                                 .paymentWay(PaymentWay.MAIL)
                                 .build()
                 )
         );
 
-        given(serviceChargeService.findServiceChargeById(any(UUID.class))).willReturn(ServiceCharge.builder()
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(dokeunEmployeeId, 1000L));
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        // when
+        paymentService.payday(now);
+
+        // then
+        verify(employeeService).streamEmployeesByPaymentType(PaymentType.S);
+        verifyNoMoreInteractions(employeeService);
+        verifyNoMoreInteractions(timeCardService);
+        verifyNoMoreInteractions(salesReceiptService);
+        verify(serviceChargeService).getDeductionCentsByIds(anySet(), any(YearMonth.class));
+        verify(paymentRepository).savePayments(anyList());
+
+
+    }
+
+    @Test
+    public void givenServiceChargesOfLastMonthWhenExecutePaydayThenDeductTotalOnlyOnFirstPayDateOfMonth() {
+
+        // given
+        Employee elsa = Employee
+                .builder()
                 .id(UUID.randomUUID())
-                .employeeId(dokeunEmployeeId)
-                .amount(10)
-                .build()
-        );
+                .name("Elsa")
+                .address("Berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .paymentWay(PaymentWay.DIRECT)
+                .build();
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willAnswer(invocation -> Stream.of(elsa));
+        given(payAccumulatorRepository.getRegularHours(any(UUID.class), any(LocalDate.class))).willReturn(8.0);
+        given(payAccumulatorRepository.getOvertimeHours(any(UUID.class), any(LocalDate.class))).willReturn(0.0);
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(elsa.getId(), 2500L));
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        // when
+        // first and third friday of january, neither is payment date of commission type
+        paymentService.payday(LocalDate.of(2020, 1, 3));
+        paymentService.payday(LocalDate.of(2020, 1, 17));
+
+        // then
+        verify(serviceChargeService).getDeductionCentsByIds(Set.of(elsa.getId()), YearMonth.of(2019, 12));
+        verifyNoMoreInteractions(serviceChargeService);
+
+        ArgumentCaptor<List<Payment>> paymentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository, times(2)).savePayments(paymentCaptor.capture());
+        assertEquals(8000 - 2500, paymentCaptor.getAllValues().get(0).get(0).getSalaryAmountCents());
+        assertEquals(8000, paymentCaptor.getAllValues().get(1).get(0).getSalaryAmountCents());
+    }
+
+    @Test
+    public void givenNotPaymentDateWhenExecutePaydayThenPayNobody() {
+
+        // given
+        // wednesday in the middle of month
+        LocalDate now = LocalDate.of(2020, 1, 15);
+
+        // when
+        paymentService.payday(now);
+
+        // then
+        verifyNoMoreInteractions(employeeService);
+        verifyNoMoreInteractions(serviceChargeService);
+        verifyNoMoreInteractions(paymentRepository);
+    }
 
-        willDoNothing().given(paymentRepository).savePaymentt(any(Payment.class));
+    @Test
+    public void givenParallelismWhenExecutePaydayThenPaySameSalaryInSameOrderAsSequential() {
+
+        // given
+        // last weekday of month
+        LocalDate now = LocalDate.of(2020, 4, 30);
+
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            employeeList.add(Employee
+                    .builder()
+                    .id(UUID.randomUUID())
+                    .name("Dokeun" + i)
+                    .address("Busan")
+                    .paymentType(PaymentType.S)
+                    .monthlyPayCents(100000 * (i + 1))
+                    .paymentWay(PaymentWay.MAIL)
+                    .build());
+        }
+
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.S)).willReturn(employeeList.stream());
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        paymentService.setParallelism(4);
+        paymentService.setShardSize(2);
 
         // when
         paymentService.payday(now);
 
         // then
-        verify(employeeService).getListOfEmployee();
+        ArgumentCaptor<List<Payment>> paymentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).savePayments(paymentCaptor.capture());
+
+        List<Payment> paymentList = paymentCaptor.getValue();
+        assertEquals(10, paymentList.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(employeeList.get(i).getId(), paymentList.get(i).getEmployeeId());
+            assertEquals(100000 * (i + 1), paymentList.get(i).getSalaryAmountCents());
+        }
+    }
+
+    @Test
+    public void givenBatchSizeWhenExecutePaydayThenPrefetchServiceChargeOncePerBatch() {
+
+        // given
+        // last weekday of month
+        LocalDate now = LocalDate.of(2020, 4, 30);
+
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            employeeList.add(Employee
+                    .builder()
+                    .id(UUID.randomUUID())
+                    .name("Dokeun" + i)
+                    .address("Busan")
+                    .paymentType(PaymentType.S)
+                    .monthlyPayCents(100000)
+                    .paymentWay(PaymentWay.MAIL)
+                    .build());
+        }
+
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.S)).willReturn(employeeList.stream());
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        paymentService.setBatchSize(2);
+
+        // when
+        paymentService.payday(now);
+
+        // then
+        verify(serviceChargeService, times(3)).getDeductionCentsByIds(anySet(), any(YearMonth.class));
         verifyNoMoreInteractions(timeCardService);
         verifyNoMoreInteractions(salesReceiptService);
-        verify(serviceChargeService).findServiceChargeById(any(UUID.class));
-        verify(paymentRepository).savePaymentt(any(Payment.class));
+        verify(paymentRepository, times(3)).savePayments(anyList());
+    }
+
+    @Test
+    public void givenMetricsRegistryWhenExecutePaydayThenCountEmployeesAndPaymentsAndTimeStages() {
+
+        // given
+        // last weekday of month
+        LocalDate now = LocalDate.of(2020, 4, 30);
+
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            employeeList.add(Employee
+                    .builder()
+                    .id(UUID.randomUUID())
+                    .name("Dokeun" + i)
+                    .address("Busan")
+                    .paymentType(PaymentType.S)
+                    .monthlyPayCents(100000)
+                    .paymentWay(PaymentWay.MAIL)
+                    .build());
+        }
+
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.S)).willReturn(employeeList.stream());
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(employeeList.get(0).getId(), 1000L), Map.of());
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        InMemoryMetricsRegistry metricsRegistry = new InMemoryMetricsRegistry();
+        paymentService.setMetricsRegistry(metricsRegistry);
+        paymentService.setBatchSize(2);
+
+        // when
+        paymentService.payday(now);
 
+        // then
+        assertEquals(5, metricsRegistry.getCount("payday.employeesProcessed"));
+        assertEquals(5, metricsRegistry.getCount("payday.paymentsWritten"));
+        assertEquals(1, metricsRegistry.getCount("payday.serviceChargesRead"));
+        assertEquals(1, metricsRegistry.getTimer("payday").getCount());
+        assertEquals(3, metricsRegistry.getTimer("payday.fetchEmployees").getCount());
+        assertEquals(3, metricsRegistry.getTimer("payday.prefetchServiceCharges").getCount());
+        assertEquals(3, metricsRegistry.getTimer("payday.calculate").getCount());
+        assertEquals(3, metricsRegistry.getTimer("payday.savePayments").getCount());
+    }
+
+    @Test
+    public void givenCheckpointWhenExecutePaydayThenResumeAfterLastPaidEmployee() {
+
+        // given
+        // friday that is payment date of commission type and hourly type
+        LocalDate now = LocalDate.of(2020, 1, 10);
+        UUID runId = PaymentService.runIdOf(now);
+        UUID lastEmployeeId = UUID.randomUUID();
+
+        PaydayCheckpointRepository paydayCheckpointRepository = mock(PaydayCheckpointRepository.class);
+        given(paydayCheckpointRepository.findByRunId(runId)).willReturn(PaydayCheckpoint.builder()
+                .runId(runId)
+                .paymentDate(now)
+                .completedPaymentTypes(EnumSet.of(PaymentType.H))
+                .lastEmployeeIdByPaymentType(new EnumMap<>(Map.of(PaymentType.C, lastEmployeeId)))
+                .build());
+
+        Employee remaining = Employee
+                .builder()
+                .id(UUID.randomUUID())
+                .name("Kenny")
+                .address("NY")
+                .paymentType(PaymentType.C)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(10000)
+                .paymentWay(PaymentWay.DIRECT)
+                .build();
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.C, lastEmployeeId)).willReturn(Stream.of(remaining));
+        given(payAccumulatorRepository.getSalesAmount(any(UUID.class), any(LocalDate.class))).willReturn(0L);
+
+        willDoNothing().given(paymentRepository).savePayments(anyList());
+
+        paymentService.setPaydayCheckpointRepository(paydayCheckpointRepository);
+
+        // when
+        paymentService.payday(now);
+
+        // then
+        verify(employeeService, never()).streamEmployeesByPaymentType(any(PaymentType.class));
+        ArgumentCaptor<List<Payment>> paymentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).savePayments(paymentCaptor.capture());
+        assertEquals(1, paymentCaptor.getValue().size());
+        assertEquals(PaymentService.paymentIdOf(runId, remaining.getId()), paymentCaptor.getValue().get(0).getId());
+
+        ArgumentCaptor<PaydayCheckpoint> checkpointCaptor = ArgumentCaptor.forClass(PaydayCheckpoint.class);
+        verify(paydayCheckpointRepository).save(checkpointCaptor.capture());
+        assertEquals(EnumSet.of(PaymentType.H, PaymentType.C), checkpointCaptor.getValue().getCompletedPaymentTypes());
+        assertTrue(checkpointCaptor.getValue().getLastEmployeeIdByPaymentType().isEmpty());
+    }
 
+    @Test
+    public void givenSameDateWhenGetPaymentIdThenReturnSameIdPerEmployee() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+
+        // when
+        UUID actual = PaymentService.paymentIdOf(PaymentService.runIdOf(LocalDate.of(2020, 1, 10)), employeeId);
+
+        // then
+        assertEquals(actual, PaymentService.paymentIdOf(PaymentService.runIdOf(LocalDate.of(2020, 1, 10)), employeeId));
+        assertNotEquals(actual, PaymentService.paymentIdOf(PaymentService.runIdOf(LocalDate.of(2020, 1, 17)), employeeId));
+        assertNotEquals(actual, PaymentService.paymentIdOf(PaymentService.runIdOf(LocalDate.of(2020, 1, 10)), UUID.randomUUID()));
+    }
+
+    @Test
+    public void givenZeroParallelismWhenSetParallelismThenThrowIllegalArgumentException() {
+
+        // when
+        IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, () -> paymentService.setParallelism(0));
+
+        // then
+        assertEquals("parallelism should be greater than 0", actual.getMessage());
     }
 
 //    @Test
@@ -282,7 +554,7 @@ public class PaymentServiceTest {
 //                                .name("Dokeun")
 //                                .address("Busan")
 //                                .paymentType(PaymentType.S)
-//                                .monthlyPay(10000.0)
+//                                .monthlyPayCents(1000000)
 //                                .paymentWay(PaymentWay.MAIL)
 //                                .build(),
 //                        Employee
@@ -291,7 +563,7 @@ public class PaymentServiceTest {
 //                                .name("Elsa")
 //                                .address("Berlin")
 //                                .paymentType(PaymentType.H)
-//                                .hourlyRate(10.0)
+//                                .hourlyRateCents(1000)
 //                                .paymentWay(PaymentWay.LEAVE_SALARY_TO_MANAGER)
 //                                .build(),
 //                        Employee
@@ -300,8 +572,8 @@ public class PaymentServiceTest {
 //                                .name("Kenny")
 //                                .address("NY")
 //                                .paymentType(PaymentType.C)
-//                                .monthlyPay(1000.0)
-//                                .commissionRate(0.01)
+//                                .monthlyPayCents(100000)
+//                                .commissionRatePpm(10000)
 //                                .paymentWay(PaymentWay.DIRECT)
 //                                .build()
 //                )
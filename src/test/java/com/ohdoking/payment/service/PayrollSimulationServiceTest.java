@@ -0,0 +1,145 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.model.*;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class PayrollSimulationServiceTest {
+
+    @InjectMocks
+    PayrollSimulationService payrollSimulationService;
+
+    @Mock
+    EmployeeService employeeService;
+
+    @Mock
+    ServiceChargeService serviceChargeService;
+
+    @Mock
+    PayAccumulatorRepository payAccumulatorRepository;
+
+    @Spy
+    PayCalendar payCalendar = new PayCalendar();
+
+    @Test
+    public void givenHourlyRateOfCohortChangedWhenSimulateThenTotalsUseChangedRateInEveryShard() {
+
+        // given
+        List<Employee> employeeList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            employeeList.add(Employee.builder()
+                    .id(UUID.randomUUID())
+                    .name("Employee" + i)
+                    .address("Berlin")
+                    .paymentType(PaymentType.H)
+                    .hourlyRateCents(1000)
+                    .paymentWay(i % 2 == 0 ? PaymentWay.DIRECT : PaymentWay.MAIL)
+                    .build());
+        }
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willAnswer(invocation -> employeeList.stream());
+        given(payAccumulatorRepository.getRegularHours(any(UUID.class), any(LocalDate.class))).willReturn(8.0);
+        given(payAccumulatorRepository.getOvertimeHours(any(UUID.class), any(LocalDate.class))).willReturn(0.0);
+
+        // first two employees get 15 instead of 10 an hour
+        PayrollScenario scenario = PayrollScenario.builder()
+                .paymentDate(LocalDate.of(2020, 1, 17))
+                .rateOverrides(List.of(RateOverride.builder()
+                        .employeeIds(Set.of(employeeList.get(0).getId(), employeeList.get(1).getId()))
+                        .hourlyRateCents(1500L)
+                        .build()))
+                .build();
+        payrollSimulationService.setParallelism(4);
+        payrollSimulationService.setShardSize(1);
+        payrollSimulationService.setBatchSize(3);
+
+        // when
+        PaymentTotals actual = payrollSimulationService.simulate(scenario);
+
+        // then
+        assertEquals(10, actual.getPaymentCount());
+        assertEquals(2 * 12000 + 8 * 8000, actual.getAmountCents());
+        assertEquals(2 * 12000 + 8 * 8000, actual.getAmountCentsByType().get(PaymentType.H));
+        assertEquals(0, actual.getAmountCentsByType().get(PaymentType.S));
+        assertEquals(12000 + 4 * 8000, actual.getAmountCentsByWay().get(PaymentWay.DIRECT));
+        assertEquals(12000 + 4 * 8000, actual.getAmountCentsByWay().get(PaymentWay.MAIL));
+        // the third friday of the month is not the first pay date of hourly type
+        verifyNoInteractions(serviceChargeService);
+    }
+
+    @Test
+    public void givenServiceChargesOfLastMonthWhenSimulateFirstPayDateOfMonthThenDeductThem() {
+
+        // given
+        Employee kenny = Employee.builder()
+                .id(UUID.randomUUID())
+                .name("Kenny")
+                .address("Berlin")
+                .paymentType(PaymentType.S)
+                .monthlyPayCents(300000)
+                .paymentWay(PaymentWay.LEAVE_SALARY_TO_MANAGER)
+                .build();
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.H)).willAnswer(invocation -> Stream.empty());
+        given(employeeService.streamEmployeesByPaymentType(PaymentType.S)).willAnswer(invocation -> Stream.of(kenny));
+        given(serviceChargeService.getDeductionCentsByIds(anySet(), any(YearMonth.class))).willReturn(Map.of(kenny.getId(), 2500L));
+
+        PayrollScenario scenario = PayrollScenario.builder()
+                .paymentDate(LocalDate.of(2020, 1, 31))
+                .rateOverrides(List.of(RateOverride.builder()
+                        .employeeIds(Set.of(kenny.getId()))
+                        .monthlyPayCents(330000L)
+                        .build()))
+                .build();
+        payrollSimulationService.setParallelism(1);
+
+        // when
+        PaymentTotals actual = payrollSimulationService.simulate(scenario);
+
+        // then
+        assertEquals(1, actual.getPaymentCount());
+        assertEquals(330000 - 2500, actual.getAmountCentsByType().get(PaymentType.S));
+        assertEquals(330000 - 2500, actual.getAmountCentsByWay().get(PaymentWay.LEAVE_SALARY_TO_MANAGER));
+        verify(serviceChargeService).getDeductionCentsByIds(Set.of(kenny.getId()), YearMonth.of(2019, 12));
+    }
+
+    @Test
+    public void givenPayPeriodAlreadyDroppedWhenSimulateThenThrowException() {
+
+        // given
+        // a later payday dropped the period ending 2020-01-17, hourly employees are paid on it
+        given(payAccumulatorRepository.isPeriodRemoved(LocalDate.of(2020, 1, 17))).willReturn(true);
+        PayrollScenario scenario = PayrollScenario.builder()
+                .paymentDate(LocalDate.of(2020, 1, 17))
+                .rateOverrides(List.of())
+                .build();
+
+        // when
+        IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, () -> payrollSimulationService.simulate(scenario));
+
+        // then
+        assertEquals("pay periods of 2020-01-17 are already paid and dropped, it can't be simulated", actual.getMessage());
+        verifyNoInteractions(employeeService);
+    }
+}
@@ -0,0 +1,172 @@
+package com.ohdoking.payment.service;
+
+import com.ohdoking.payment.exception.ResourceNotFoundException;
+import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.SaleReceipt;
+import com.ohdoking.payment.repository.EmployeeRepository;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
+import com.ohdoking.payment.repository.SalesReceiptRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.spy;
+
+public class SalesReceiptIngestionServiceTest {
+
+    EmployeeRepository employeeRepository = new EmployeeRepository();
+    SalesReceiptRepository salesReceiptRepository = new SalesReceiptRepository();
+    PayAccumulatorRepository payAccumulatorRepository = new PayAccumulatorRepository();
+
+    SalesReceiptIngestionService salesReceiptIngestionService = new SalesReceiptIngestionService(
+            new SalesReceiptService(new EmployeeCache(employeeRepository), salesReceiptRepository, payAccumulatorRepository), 1024, 16);
+
+    @AfterEach
+    public void tearDown() {
+        salesReceiptIngestionService.close();
+    }
+
+    @Test
+    public void givenBurstOfSalesReceiptsWhenExecuteSubmitSalesReceiptThenWriteEveryReceipt() throws Exception {
+
+        // given
+        UUID kennyEmployeeId = addCommissionedEmployee();
+        LocalDate localDate = LocalDate.of(2020, 1, 31);
+
+        // when
+        List<CompletableFuture<SaleReceipt>> futureList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futureList.add(salesReceiptIngestionService.submitSalesReceipt(kennyEmployeeId, localDate, 10));
+        }
+        CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(100, salesReceiptRepository.getListOfSalesReceiptById(kennyEmployeeId, localDate).size());
+        assertEquals(1000, payAccumulatorRepository.getSalesAmount(kennyEmployeeId, PayAccumulatorRepository.periodEndOf(localDate)));
+        assertEquals(kennyEmployeeId, futureList.get(0).get().getEmployeeId());
+    }
+
+    @Test
+    public void givenNonExistEmployeeWhenExecuteSubmitSalesReceiptThenFailFuture() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+
+        // when
+        CompletableFuture<SaleReceipt> actual = salesReceiptIngestionService.submitSalesReceipt(employeeId, LocalDate.of(2020, 1, 31), 10);
+
+        // then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> actual.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ResourceNotFoundException);
+        assertEquals(0, salesReceiptRepository.getListOfSalesReceiptById(employeeId, LocalDate.of(2020, 1, 1)).size());
+    }
+
+    @Test
+    public void givenClosedIngestionWhenExecuteSubmitSalesReceiptThenRejectIt() throws Exception {
+
+        // given
+        UUID kennyEmployeeId = addCommissionedEmployee();
+        CompletableFuture<SaleReceipt> written = salesReceiptIngestionService.submitSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 31), 10);
+        salesReceiptIngestionService.close();
+
+        // when
+        CompletableFuture<SaleReceipt> actual = salesReceiptIngestionService.submitSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 31), 10);
+
+        // then
+        assertTrue(written.isDone());
+        assertNotNull(written.get());
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> actual.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void givenSubmittersRacingCloseWhenExecuteCloseThenCompleteEveryFuture() throws Exception {
+
+        // given
+        UUID kennyEmployeeId = addCommissionedEmployee();
+        List<CompletableFuture<SaleReceipt>> futureList = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> submitterList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread submitter = new Thread(() -> {
+                started.countDown();
+                for (int j = 0; j < 2000; j++) {
+                    futureList.add(salesReceiptIngestionService.submitSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 31), 1));
+                }
+            });
+            submitter.start();
+            submitterList.add(submitter);
+        }
+        started.await();
+
+        // when
+        salesReceiptIngestionService.close();
+        for (Thread submitter : submitterList) {
+            submitter.join();
+        }
+
+        // then
+        // written or rejected, none is left in the queue
+        long written = 0;
+        for (CompletableFuture<SaleReceipt> future : futureList) {
+            assertTrue(future.isDone());
+            if (!future.isCompletedExceptionally()) {
+                written++;
+            }
+        }
+        assertEquals(0, salesReceiptIngestionService.getQueueSize());
+        assertEquals(written, salesReceiptRepository.getListOfSalesReceiptById(kennyEmployeeId, LocalDate.of(2020, 1, 1)).size());
+    }
+
+    @Test
+    public void givenWriteThrowingErrorWhenExecuteSubmitSalesReceiptThenFailBatchAndKeepWriting() throws Exception {
+
+        // given
+        UUID kennyEmployeeId = addCommissionedEmployee();
+        SalesReceiptRepository failingRepository = spy(new SalesReceiptRepository());
+        willThrow(new OutOfMemoryError("write failed")).willCallRealMethod().given(failingRepository).createSaleReceipts(anyList());
+        SalesReceiptIngestionService failingIngestionService = new SalesReceiptIngestionService(
+                new SalesReceiptService(new EmployeeCache(employeeRepository), failingRepository, payAccumulatorRepository), 1024, 16);
+
+        try {
+            // when
+            CompletableFuture<SaleReceipt> failed = failingIngestionService.submitSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 31), 10);
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+            CompletableFuture<SaleReceipt> written = failingIngestionService.submitSalesReceipt(kennyEmployeeId, LocalDate.of(2020, 1, 31), 10);
+
+            // then
+            assertTrue(exception.getCause() instanceof OutOfMemoryError);
+            assertNotNull(written.get(10, TimeUnit.SECONDS));
+            assertEquals(1, failingRepository.getListOfSalesReceiptById(kennyEmployeeId, LocalDate.of(2020, 1, 1)).size());
+        } finally {
+            failingIngestionService.close();
+        }
+    }
+
+    private UUID addCommissionedEmployee() {
+        UUID employeeId = UUID.randomUUID();
+        employeeRepository.addEmployee(Employee.builder()
+                .id(employeeId)
+                .name("Kenny")
+                .address("NY")
+                .paymentType(PaymentType.C)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
+                .build());
+        return employeeId;
+    }
+}
@@ -5,7 +5,7 @@ import com.ohdoking.payment.exception.ResourceNotFoundException;
 import com.ohdoking.payment.model.Employee;
 import com.ohdoking.payment.model.PaymentType;
 import com.ohdoking.payment.model.SaleReceipt;
-import com.ohdoking.payment.repository.EmployeeRepository;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
 import com.ohdoking.payment.repository.SalesReceiptRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,11 +30,14 @@ public class SalesReceiptServiceTest {
     SalesReceiptService salesReceiptService;
 
     @Mock
-    EmployeeRepository employeeRepository;
+    EmployeeCache employeeCache;
 
     @Mock
     SalesReceiptRepository salesReceiptRepository;
 
+    @Mock
+    PayAccumulatorRepository payAccumulatorRepository;
+
     /**
      * usecase 4
      * <p>
@@ -56,11 +59,11 @@ public class SalesReceiptServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.C)
-                .monthlyPay(1000.0)
-                .commissionRate(0.1)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         willDoNothing().given(salesReceiptRepository).createSaleReceipt(any(SaleReceipt.class));
 
@@ -68,8 +71,9 @@ public class SalesReceiptServiceTest {
         salesReceiptService.addSalesReceipt(employeeId, localDate, amount);
 
         // then
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
         BDDMockito.verify(salesReceiptRepository).createSaleReceipt(any(SaleReceipt.class));
+        BDDMockito.verify(payAccumulatorRepository).addSalesAmount(employeeId, localDate, amount);
 
 
     }
@@ -87,18 +91,22 @@ public class SalesReceiptServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.H)
-                .hourlyRate(10.0)
+                .hourlyRateCents(1000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         // when
         IncorrectPaymentTypeEmployeeException actual = assertThrows(IncorrectPaymentTypeEmployeeException.class, () -> salesReceiptService.addSalesReceipt(employeeId, localDate, amount));
 
         // then
         assertEquals("The employee is not C type of employee", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
-        BDDMockito.verifyZeroInteractions(salesReceiptRepository);
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(salesReceiptRepository).setRestoreListener(any());
+        // the service listens to restored records since it's created
+        BDDMockito.verify(salesReceiptRepository).setRestoreListener(any());
+        BDDMockito.verifyNoMoreInteractions(salesReceiptRepository);
 
 
     }
@@ -116,19 +124,23 @@ public class SalesReceiptServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.C)
-                .monthlyPay(1000.0)
-                .commissionRate(0.1)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         // when
         NullPointerException actual = assertThrows(NullPointerException.class, () -> salesReceiptService.addSalesReceipt(employeeId, localDate, amount));
 
         // then
         assertEquals("amount is marked non-null but is null", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
-        BDDMockito.verifyZeroInteractions(salesReceiptRepository);
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(salesReceiptRepository).setRestoreListener(any());
+        // the service listens to restored records since it's created
+        BDDMockito.verify(salesReceiptRepository).setRestoreListener(any());
+        BDDMockito.verifyNoMoreInteractions(salesReceiptRepository);
     }
 
     @Test
@@ -139,14 +151,16 @@ public class SalesReceiptServiceTest {
         LocalDate localDate = LocalDate.now();
         Integer amount = 10;
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(null);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(null);
 
         // when
         ResourceNotFoundException actual = assertThrows(ResourceNotFoundException.class, () -> salesReceiptService.addSalesReceipt(employeeId, localDate, amount));
 
         // then
         assertEquals(employeeId.toString() + " id of employee doesn't exist", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(salesReceiptRepository).setRestoreListener(any());
         BDDMockito.verifyNoMoreInteractions(salesReceiptRepository);
     }
 }
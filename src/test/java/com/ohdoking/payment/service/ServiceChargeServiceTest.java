@@ -4,15 +4,16 @@ import com.ohdoking.payment.exception.ResourceNotFoundException;
 import com.ohdoking.payment.model.Employee;
 import com.ohdoking.payment.model.PaymentType;
 import com.ohdoking.payment.model.ServiceCharge;
-import com.ohdoking.payment.repository.EmployeeRepository;
 import com.ohdoking.payment.repository.ServiceChargeRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -27,7 +28,7 @@ public class ServiceChargeServiceTest {
     ServiceChargeService serviceChargeService;
 
     @Mock
-    EmployeeRepository employeeRepository;
+    EmployeeCache employeeCache;
 
     @Mock
     ServiceChargeRepository serviceChargeRepository;
@@ -52,11 +53,11 @@ public class ServiceChargeServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.C)
-                .monthlyPay(1000.0)
-                .commissionRate(0.1)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         willDoNothing().given(serviceChargeRepository).createServiceCharge(any(ServiceCharge.class));
 
@@ -64,12 +65,43 @@ public class ServiceChargeServiceTest {
         serviceChargeService.addServiceCharge(employeeId, amount);
 
         // then
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
         BDDMockito.verify(serviceChargeRepository).createServiceCharge(any(ServiceCharge.class));
 
 
     }
 
+    @Test
+    public void givenDateWhenExecuteAddServiceChargeThenCreateServiceChargeOfTheDate() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        LocalDate date = LocalDate.of(2020, 1, 7);
+
+        Employee employee = Employee.builder()
+                .id(employeeId)
+                .name("Dokeun")
+                .address("berlin")
+                .paymentType(PaymentType.C)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
+                .build();
+
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
+
+        willDoNothing().given(serviceChargeRepository).createServiceCharge(any(ServiceCharge.class));
+
+        // when
+        serviceChargeService.addServiceCharge(employeeId, date, 10);
+
+        // then
+        ArgumentCaptor<ServiceCharge> serviceChargeCaptor = ArgumentCaptor.forClass(ServiceCharge.class);
+        BDDMockito.verify(serviceChargeRepository).createServiceCharge(serviceChargeCaptor.capture());
+        assertEquals(employeeId, serviceChargeCaptor.getValue().getEmployeeId());
+        assertEquals(date, serviceChargeCaptor.getValue().getDate());
+        assertEquals(10, serviceChargeCaptor.getValue().getAmount());
+    }
+
     @Test
     public void givenNonExistEmployeeWhenExecuteAddServiceChargeThenThrowResourceNotFoundException() {
 
@@ -77,14 +109,14 @@ public class ServiceChargeServiceTest {
         UUID employeeId = UUID.randomUUID();
         Integer amount = 10;
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(null);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(null);
 
         // when
         ResourceNotFoundException actual = assertThrows(ResourceNotFoundException.class, () -> serviceChargeService.addServiceCharge(employeeId, amount));
 
         // then
         assertEquals(employeeId.toString() + " id of employee doesn't exist", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
         BDDMockito.verifyNoMoreInteractions(serviceChargeRepository);
     }
 
@@ -100,18 +132,18 @@ public class ServiceChargeServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.C)
-                .monthlyPay(1000.0)
-                .commissionRate(0.1)
+                .monthlyPayCents(100000)
+                .commissionRatePpm(100000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         // when
         NullPointerException actual = assertThrows(NullPointerException.class, () -> serviceChargeService.addServiceCharge(employeeId, amount));
 
         // then
         assertEquals("amount is marked non-null but is null", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
         BDDMockito.verifyNoMoreInteractions(serviceChargeRepository);
     }
 
@@ -0,0 +1,72 @@
+package com.ohdoking.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeCardCsvReaderTest {
+
+    @Test
+    public void givenLinesLongerThanHalfOfBufferWhenExecuteNextThenReadEveryRow() throws IOException {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append(employeeId).append(",2020-01-").append(10 + i % 10).append(",").append(i % 12).append(".5\n");
+        }
+        // every line is 52 bytes, so lines are split between two reads of the 64 bytes buffer
+        TimeCardCsvReader reader = reader(csv.toString(), 64);
+
+        // when
+        int count = 0;
+        while (reader.next()) {
+
+            // then
+            assertNull(reader.getError());
+            assertEquals(employeeId, reader.getEmployeeId());
+            assertEquals(LocalDate.of(2020, 1, 10 + count % 10), reader.getDate());
+            assertEquals(count % 12 + 0.5, reader.getHours());
+            assertEquals(count + 1, reader.getLineNumber());
+            count++;
+        }
+        assertEquals(100, count);
+    }
+
+    @Test
+    public void givenLineLongerThanBufferWhenExecuteNextThenReportItAndGoOn() throws IOException {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append('x');
+        }
+        csv.append('\n').append(employeeId).append(",2020-01-17,8");
+        TimeCardCsvReader reader = reader(csv.toString(), 64);
+
+        // when
+        assertTrue(reader.next());
+        String actual = reader.getError();
+
+        // then
+        assertEquals("line is too long", actual);
+        assertEquals(1, reader.getLineNumber());
+        assertTrue(reader.next());
+        assertNull(reader.getError());
+        assertEquals(8.0, reader.getHours());
+        assertEquals(2, reader.getLineNumber());
+        assertFalse(reader.next());
+    }
+
+    private TimeCardCsvReader reader(String csv, int bufferSize) {
+        return new TimeCardCsvReader(Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII))), bufferSize);
+    }
+}
@@ -3,25 +3,38 @@ package com.ohdoking.payment.service;
 import com.ohdoking.payment.exception.IncorrectPaymentTypeEmployeeException;
 import com.ohdoking.payment.exception.ResourceNotFoundException;
 import com.ohdoking.payment.model.Employee;
+import com.ohdoking.payment.model.ImportReport;
 import com.ohdoking.payment.model.PaymentType;
+import com.ohdoking.payment.model.RowError;
 import com.ohdoking.payment.model.TimeCard;
-import com.ohdoking.payment.repository.EmployeeRepository;
+import com.ohdoking.payment.repository.PayAccumulatorRepository;
 import com.ohdoking.payment.repository.TimeCardRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 public class TimeCardServiceTest {
@@ -30,11 +43,17 @@ public class TimeCardServiceTest {
     TimeCardService timeCardService;
 
     @Mock
-    EmployeeRepository employeeRepository;
+    EmployeeCache employeeCache;
 
     @Mock
     TimeCardRepository timeCardRepository;
 
+    @Mock
+    PayAccumulatorRepository payAccumulatorRepository;
+
+    @TempDir
+    Path directory;
+
     /**
      * usecase 3
      * <p>
@@ -56,18 +75,47 @@ public class TimeCardServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.H)
-                .hourlyRate(10.0)
+                .hourlyRateCents(1000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
         willDoNothing().given(timeCardRepository).createTimeCard(any(TimeCard.class));
 
         // when
         timeCardService.addTimeCard(employeeId, localDate, hours);
 
         // then
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
         BDDMockito.verify(timeCardRepository).createTimeCard(any(TimeCard.class));
+        BDDMockito.verify(payAccumulatorRepository).addHours(employeeId, localDate, 8.0, 0.0);
+
+    }
+
+    @Test
+    public void givenOvertimeHoursWhenExecuteWriteTimeCardThenAccumulateRegularAndOvertimeHours() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        LocalDate localDate = LocalDate.now();
+        Double hours = 10.0;
+
+        Employee employee = Employee.builder()
+                .id(employeeId)
+                .name("Dokeun")
+                .address("berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .build();
+
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
+        willDoNothing().given(timeCardRepository).createTimeCard(any(TimeCard.class));
+
+        // when
+        timeCardService.addTimeCard(employeeId, localDate, hours);
+
+        // then
+        // 2 hours of overtime are paid 1.5 times
+        BDDMockito.verify(payAccumulatorRepository).addHours(employeeId, localDate, 8.0, 3.0);
 
     }
 
@@ -84,18 +132,22 @@ public class TimeCardServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.S)
-                .monthlyPay(1000.0)
+                .monthlyPayCents(100000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         // when
         IncorrectPaymentTypeEmployeeException actual = assertThrows(IncorrectPaymentTypeEmployeeException.class, () -> timeCardService.addTimeCard(employeeId, localDate, hours));
 
         // then
         assertEquals("The employee is not H type of employee", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
-        BDDMockito.verifyZeroInteractions(timeCardRepository);
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
+        BDDMockito.verifyNoMoreInteractions(timeCardRepository);
     }
 
 
@@ -112,18 +164,52 @@ public class TimeCardServiceTest {
                 .name("Dokeun")
                 .address("berlin")
                 .paymentType(PaymentType.H)
-                .hourlyRate(10.0)
+                .hourlyRateCents(1000)
                 .build();
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(employee);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
 
         // when
         NullPointerException actual = assertThrows(NullPointerException.class, () -> timeCardService.addTimeCard(employeeId, localDate, hours));
 
         // then
         assertEquals("hours is marked non-null but is null", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
-        BDDMockito.verifyZeroInteractions(timeCardRepository);
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
+        BDDMockito.verifyNoMoreInteractions(timeCardRepository);
+    }
+
+    @Test
+    public void givenHoursOverOneDayWhenExecuteWriteTimeCardThenThrowIllegalArgumentException() {
+
+        // given
+        UUID employeeId = UUID.randomUUID();
+        LocalDate localDate = LocalDate.now();
+        Double hours = 24.5;
+
+        Employee employee = Employee.builder()
+                .id(employeeId)
+                .name("Dokeun")
+                .address("berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .build();
+
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(employee);
+
+        // when
+        IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, () -> timeCardService.addTimeCard(employeeId, localDate, hours));
+
+        // then
+        assertEquals("hours should be between 0 and 24", actual.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> timeCardService.addTimeCard(employeeId, localDate, -1.0));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
+        BDDMockito.verifyNoMoreInteractions(timeCardRepository);
+        BDDMockito.verifyNoInteractions(payAccumulatorRepository);
     }
 
     @Test
@@ -134,15 +220,74 @@ public class TimeCardServiceTest {
         LocalDate localDate = LocalDate.now();
         Double hours = 10.0;
 
-        given(employeeRepository.getEmployee(any(UUID.class))).willReturn(null);
+        given(employeeCache.getEmployee(any(UUID.class))).willReturn(null);
 
         // when
         ResourceNotFoundException actual = assertThrows(ResourceNotFoundException.class, () -> timeCardService.addTimeCard(employeeId, localDate, hours));
 
         // then
         assertEquals(employeeId.toString() + " id of employee doesn't exist", actual.getMessage());
-        BDDMockito.verify(employeeRepository).getEmployee(any(UUID.class));
+        BDDMockito.verify(employeeCache).getEmployee(any(UUID.class));
+        // the service listens to restored records since it's created
+        BDDMockito.verify(timeCardRepository).setRestoreListener(any());
         BDDMockito.verifyNoMoreInteractions(timeCardRepository);
     }
 
+    @Test
+    public void givenCsvFileWithBrokenRowsWhenExecuteImportTimeCardsThenImportValidRowsAndReportOthers() throws IOException {
+
+        // given
+        UUID elsaEmployeeId = UUID.randomUUID();
+        UUID dokeunEmployeeId = UUID.randomUUID();
+        Employee elsa = Employee.builder()
+                .id(elsaEmployeeId)
+                .name("Elsa")
+                .address("Berlin")
+                .paymentType(PaymentType.H)
+                .hourlyRateCents(1000)
+                .build();
+        Employee dokeun = Employee.builder()
+                .id(dokeunEmployeeId)
+                .name("Dokeun")
+                .address("Berlin")
+                .paymentType(PaymentType.S)
+                .monthlyPayCents(100000)
+                .build();
+
+        Path file = directory.resolve("timecards.csv");
+        Files.write(file, Arrays.asList(
+                "employeeId,date,hours",
+                elsaEmployeeId + ",2020-01-13,8",
+                elsaEmployeeId + ",2020-01-14,10.5",
+                "not-an-id,2020-01-14,8",
+                UUID.randomUUID() + ",2020-01-14,8",
+                dokeunEmployeeId + ",2020-01-14,8",
+                elsaEmployeeId + ",2020-02-30,8",
+                "",
+                elsaEmployeeId + ",2020-01-15,7.25\r",
+                elsaEmployeeId + ",2020-01-16,24.5"
+        ), StandardCharsets.US_ASCII);
+
+        given(employeeCache.getEmployees(anySet())).willReturn(Map.of(elsaEmployeeId, elsa, dokeunEmployeeId, dokeun));
+        willDoNothing().given(timeCardRepository).createTimeCards(anyList());
+
+        timeCardService.setImportChunkSize(2);
+
+        // when
+        ImportReport actual = timeCardService.importTimeCards(file, true);
+
+        // then
+        assertEquals(8, actual.getRowCount());
+        assertEquals(3, actual.getImportedCount());
+        assertEquals(5, actual.getErrorCount());
+        assertEquals(Arrays.asList(4L, 5L, 6L, 7L, 10L),
+                actual.getRowErrors().stream().map(RowError::getLineNumber).collect(Collectors.toList()));
+        assertEquals("employee id is not an uuid", actual.getRowErrors().get(0).getMessage());
+        assertEquals("The employee is not H type of employee", actual.getRowErrors().get(2).getMessage());
+        assertEquals("date is not yyyy-MM-dd", actual.getRowErrors().get(3).getMessage());
+        assertEquals("hours should be between 0 and 24", actual.getRowErrors().get(4).getMessage());
+        BDDMockito.verify(timeCardRepository, times(2)).createTimeCards(anyList());
+        BDDMockito.verify(payAccumulatorRepository).addHours(elsaEmployeeId, LocalDate.of(2020, 1, 14), 8.0, 3.75);
+        BDDMockito.verify(payAccumulatorRepository).addHours(elsaEmployeeId, LocalDate.of(2020, 1, 15), 7.25, 0.0);
+    }
 }